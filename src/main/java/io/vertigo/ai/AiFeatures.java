@@ -2,12 +2,15 @@ package io.vertigo.ai;
 
 import io.vertigo.ai.bb.BlackBoardManager;
 import io.vertigo.ai.bt.BehaviorTreeManager;
+import io.vertigo.ai.bt.BehaviorTreeSchedulerManager;
 import io.vertigo.ai.command.BtCommandManager;
 import io.vertigo.ai.impl.bb.BlackBoardManagerImpl;
 import io.vertigo.ai.impl.bt.BehaviorTreeManagerImpl;
+import io.vertigo.ai.impl.bt.BehaviorTreeSchedulerManagerImpl;
 import io.vertigo.ai.impl.command.BtCommandManagerImpl;
 import io.vertigo.ai.impl.nlu.NluManagerImpl;
 import io.vertigo.ai.nlu.NluManager;
+import io.vertigo.ai.plugins.bb.file.FileBlackBoardStorePlugin;
 import io.vertigo.ai.plugins.bb.memory.MemoryBlackBoardStorePlugin;
 import io.vertigo.ai.plugins.bb.redis.RedisBlackBoardStorePlugin;
 import io.vertigo.ai.plugins.nlu.rasa.RasaNluEnginePlugin;
@@ -36,6 +39,19 @@ public class AiFeatures extends Features<AiFeatures> {
 		return this;
 	}
 
+	/**
+	 * Activates the scheduler ticking the BT of many agents.
+	 * The params parallelism, resolutionMillis and maxPendingTicks are optional.
+	 *
+	 * @return these features
+	 */
+	@Feature("scheduler")
+	public AiFeatures withScheduler(final Param... params) {
+		getModuleConfigBuilder()
+				.addComponent(BehaviorTreeSchedulerManager.class, BehaviorTreeSchedulerManagerImpl.class, params);
+		return this;
+	}
+
 	/**
 	 * Activates BlackBoard.
 	 *
@@ -60,8 +76,24 @@ public class AiFeatures extends Features<AiFeatures> {
 		return this;
 	}
 
+	/**
+	 * Add ability to use a durable file plugin to store Blackboards on a single node.
+	 * The param filePath is required, the log is compacted after compactionThreshold records.
+	 * The param fsync tells when the log is forced on the disk : always, everySecond (by default) or never.
+	 *
+	 * @return these features
+	 */
+	@Feature("blackboard.file")
+	public AiFeatures withFileBlackboard(final Param... params) {
+		getModuleConfigBuilder()
+				.addPlugin(FileBlackBoardStorePlugin.class, params);
+		return this;
+	}
+
 	/**
 	 * Add ability to use redis plugin to store Blackboards.
+	 * A local near cache can be activated for each store with the params nearCacheMaxSize and nearCacheTtlSeconds.
+	 * The param hashTags is required with a redis cluster : it keeps all the keys of a root (a session) on a single shard.
 	 *
 	 * @return these features
 	 */
@@ -0,0 +1,88 @@
+package io.vertigo.ai.bb;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+import io.vertigo.ai.bb.BlackBoard.Type;
+
+/**
+ * The asynchronous counterpart of a blackboard : the operations return a stage completed when the store has answered.
+ * A thread is never blocked waiting for the store, so a few threads can serve many concurrent sessions.
+ *
+ * The operations have the same semantics as the ones of BlackBoard, an error (a wrong type...) completes the stage exceptionally.
+ * The stages may be completed by the thread of the store : a continuation must not block,
+ * use the async variants of CompletionStage with an executor to run blocking code.
+ *
+ * The operations sent by a single thread are executed in order.
+ */
+public interface AsyncBlackBoard {
+
+	//------------------------------------
+	//--- Keys
+	//------------------------------------
+	/**
+	 * Returns if the key exists
+	 *
+	 * @param key the key
+	 * @return if the key exists
+	 */
+	CompletionStage<Boolean> exists(final BBKey key);
+
+	/**
+	 * Deletes all the keys matching the pattern
+	 *
+	 * @param keyPattern the pattern
+	 * @return the stage completed once the keys are deleted
+	 */
+	CompletionStage<Void> delete(final BBKeyPattern keyPattern);
+
+	/**
+	 * Returns the type of the key or null if the key doesn't exist
+	 *
+	 * @param key the key
+	 * @return the type of the key
+	 */
+	CompletionStage<Type> getType(final BBKey key);
+
+	//------------------------------------
+	//--- KV
+	//------------------------------------
+	/**
+	 * Returns the values of many keys, whatever their types (see BlackBoard.getAll).
+	 *
+	 * @param keys the keys
+	 * @return the values of the existing keys
+	 */
+	CompletionStage<Map<BBKey, String>> getAll(final Collection<BBKey> keys);
+
+	/**
+	 * Writes many values (String or Integer) at once (see BlackBoard.putAll).
+	 *
+	 * @param values the values by key
+	 * @return the stage completed once the values are written
+	 */
+	CompletionStage<Void> putAll(final Map<BBKey, ?> values);
+
+	CompletionStage<String> getString(final BBKey key);
+
+	CompletionStage<Void> putString(final BBKey key, final String value);
+
+	CompletionStage<Integer> getInteger(final BBKey key);
+
+	CompletionStage<Void> putInteger(final BBKey key, final Integer value);
+
+	CompletionStage<Void> incrBy(final BBKey key, final int value);
+
+	//------------------------------------
+	//- List
+	//------------------------------------
+	CompletionStage<Long> listSize(final BBKey key);
+
+	CompletionStage<Void> listPush(final BBKey key, final String value);
+
+	CompletionStage<String> listPop(final BBKey key);
+
+	CompletionStage<List<String>> listRange(final BBKey key, final int from, final int to);
+}
@@ -29,7 +29,34 @@ public record BBKey(String key) {
 	public BBKey{
 		Assertion.check()
 				.isNotBlank(key)
-				.isTrue(key.matches(KEY_REGEX), "the key '{0}' must contain only a-z 1-9 words separated with /", key);
+				.isTrue(isValid(key), "the key '{0}' must contain only a-z 1-9 words separated with /", key);
+	}
+
+	/**
+	 * Checks that the key follows the KEY_REGEX.
+	 * Keys are built very often, so the check is hand-written to avoid the cost of a regex.
+	 *
+	 * @param key the key
+	 * @return true if the key is valid
+	 */
+	private static boolean isValid(final String key) {
+		final int length = key.length();
+		if (length < 2 || key.charAt(0) != '/') {
+			return false;
+		}
+		char previous = '/';
+		for (int i = 1; i < length; i++) {
+			final char c = key.charAt(i);
+			if (c == '/') {
+				if (previous == '/') {
+					return false; // empty word
+				}
+			} else if (!(c >= 'a' && c <= 'z') && !(c >= '0' && c <= '9')) {
+				return false;
+			}
+			previous = c;
+		}
+		return previous != '/';
 	}
 
 	public static BBKey of(final String key) {
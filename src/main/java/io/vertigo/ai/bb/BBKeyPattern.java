@@ -1,17 +1,20 @@
 package io.vertigo.ai.bb;
 
+import java.util.regex.Pattern;
+
 import io.vertigo.core.lang.Assertion;
 
 public final class BBKeyPattern {
 
 	public static String KEY_PATTERN_REGEX = "(" + BBKey.KEY_REGEX + "/?\\*?)|/\\*";
+	private static final Pattern KEY_PATTERN = Pattern.compile(KEY_PATTERN_REGEX);
 
 	private final String keyPattern;
 
 	private BBKeyPattern(final String keyPattern) {
 		Assertion.check()
 				.isNotBlank(keyPattern)
-				.isTrue(keyPattern.matches(KEY_PATTERN_REGEX), "the key pattern '{0}' must contain only a-z 1-9 words separated with / and is finished by a * or nothing", keyPattern);
+				.isTrue(KEY_PATTERN.matcher(keyPattern).matches(), "the key pattern '{0}' must contain only a-z 1-9 words separated with / and is finished by a * or nothing", keyPattern);
 		//---
 		this.keyPattern = keyPattern;
 	}
@@ -20,6 +23,21 @@ public final class BBKeyPattern {
 		return keyPattern;
 	}
 
+	/**
+	 * Returns if a key matches this pattern : the same key, or a key starting with the prefix of a pattern ending with *.
+	 *
+	 * @param key the key
+	 * @return if the key matches
+	 */
+	public boolean matches(final BBKey key) {
+		Assertion.check().isNotNull(key);
+		//---
+		if (keyPattern.endsWith("*")) {
+			return key.key().startsWith(keyPattern.substring(0, keyPattern.length() - 1));
+		}
+		return key.key().equals(keyPattern);
+	}
+
 	public BBKeyPattern indent(final String prefix) {
 		Assertion.check().isNotBlank(prefix);
 		//---
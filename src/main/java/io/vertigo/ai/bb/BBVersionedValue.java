@@ -0,0 +1,11 @@
+package io.vertigo.ai.bb;
+
+/**
+ * A string value read with its version (see BlackBoard.getVersioned).
+ * The version changes with each write of the key, it's 0 if the key doesn't exist.
+ *
+ * @param value the value or null
+ * @param version the version of the value
+ */
+public record BBVersionedValue(String value, long version) {
+}
@@ -0,0 +1,14 @@
+package io.vertigo.ai.bb;
+
+/**
+ * A watch on the keys of a blackboard (see BlackBoard.watch).
+ * The listener is not called anymore once the watch is closed.
+ */
+public interface BBWatch extends AutoCloseable {
+
+	/**
+	 * Stops watching.
+	 */
+	@Override
+	void close();
+}
@@ -1,6 +1,11 @@
 package io.vertigo.ai.bb;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * The blackboard is a simple structure allowing to read and write values identified by keys.
@@ -20,6 +25,18 @@ public interface BlackBoard {
 		String, Integer, List
 	}
 
+	//------------------------------------
+	//--- Batch
+	//------------------------------------
+	/**
+	 * Executes a unit of work (for example a tick of a BT) on this blackboard.
+	 * The writes may be deferred and sent to the store in a single round trip at the end of the unit of work.
+	 * The reads done inside the unit of work see its own writes.
+	 *
+	 * @param unitOfWork the unit of work using the provided blackboard
+	 */
+	void batch(final Consumer<BlackBoard> unitOfWork);
+
 	//------------------------------------
 	//--- Keys
 	//------------------------------------
@@ -56,6 +73,27 @@ public interface BlackBoard {
 	 */
 	Type getType(final BBKey key);
 
+	/**
+	 * Sets a time to live on all the existing keys matching the pattern (a key or a subtree)
+	 * An expired key is deleted
+	 * A key keeps its ttl when it is written again, until it is deleted or expires
+	 *
+	 * @param keyPattern the pattern
+	 * @param ttl the time to live
+	 */
+	void expire(final BBKeyPattern keyPattern, final Duration ttl);
+
+	/**
+	 * Watches the changes of the keys matching the pattern : the writes and the deletions (including the expirations).
+	 * The listener receives the changed key, so a process waiting for a key can be resumed instead of polling it.
+	 * The listener is called by a thread of the store : it must be quick and must not block.
+	 *
+	 * @param keyPattern the pattern
+	 * @param listener the listener receiving the changed keys
+	 * @return the watch, to close when the changes are not needed anymore
+	 */
+	BBWatch watch(final BBKeyPattern keyPattern, final Consumer<BBKey> listener);
+
 	//------------------------------------
 	//--- KV
 	//------------------------------------
@@ -75,6 +113,24 @@ public interface BlackBoard {
 	 */
 	BBKey eval(final BBKeyTemplate keyTemplate);
 
+	/**
+	 * Returns the values of many keys (strings or integers) in a single operation
+	 * The integers are returned as strings
+	 * The keys without value are not included in the result
+	 *
+	 * @param keys the keys
+	 * @return the values mapped with their keys
+	 */
+	Map<BBKey, String> getAll(final Collection<BBKey> keys);
+
+	/**
+	 * Associates many values with their keys in a single operation
+	 * A value must be a String or an Integer, the type of each key is checked before any write
+	 *
+	 * @param values the values mapped with their keys
+	 */
+	void putAll(final Map<BBKey, ?> values);
+
 	//--- KV String
 	/**
 	 * Returns the value or null if the key does not exist
@@ -129,6 +185,37 @@ public interface BlackBoard {
 	 */
 	boolean contains(final BBKey key, final String compare);
 
+	/**
+	 * Replaces the value only if the current value is the expected one, in a single atomic operation.
+	 * A null expected value means that the key must not exist.
+	 *
+	 * @param key the key
+	 * @param expected the expected value
+	 * @param newValue the new value
+	 * @return true if the value has been replaced
+	 */
+	boolean compareAndSet(final BBKey key, final String expected, final String newValue);
+
+	/**
+	 * Returns the value with its version.
+	 * The version changes with each write of the key : the value can be written back only if it has not been changed meanwhile (see putIfVersion).
+	 *
+	 * @param key the key
+	 * @return the value and its version (0 if the key doesn't exist)
+	 */
+	BBVersionedValue getVersioned(final BBKey key);
+
+	/**
+	 * Associates the value with the key only if the version of the key is still the expected one, in a single atomic operation.
+	 * If the write is refused, the key has been changed meanwhile : the value must be read again before retrying.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @param version the expected version (0 if the key must not exist)
+	 * @return true if the value has been written
+	 */
+	boolean putIfVersion(final BBKey key, final String value, final long version);
+
 	//--- KV Integer
 	/**
 	 * Returns the value or null if the key does not exist
@@ -218,4 +305,41 @@ public interface BlackBoard {
 	 * @return the value at the corresponding index
 	 */
 	String listGet(final BBKey key, final int idx);
+
+	/**
+	 * Pushes a value at the bottom of the list (index 0)
+	 *
+	 * @param key the key
+	 * @param value the value
+	 */
+	void listPushLeft(final BBKey key, final String value);
+
+	/**
+	 * Removes and returns the value at the bottom of the list (index 0)
+	 *
+	 * @param key the key
+	 * @return the value or null if the list is empty
+	 */
+	String listPopLeft(final BBKey key);
+
+	/**
+	 * Returns the values between two indexes of the list, both included.
+	 * A negative index starts from the top of the list : -1 is the top, so listRange(key, 0, -1) returns the whole list.
+	 *
+	 * @param key the key
+	 * @param from the first index
+	 * @param to the last index
+	 * @return the values, from the bottom to the top
+	 */
+	List<String> listRange(final BBKey key, final int from, final int to);
+
+	/**
+	 * Keeps only the values between two indexes of the list, both included (same indexes as listRange).
+	 * listTrim(key, -100, -1) keeps the last 100 values of a capped history.
+	 *
+	 * @param key the key
+	 * @param from the first index
+	 * @param to the last index
+	 */
+	void listTrim(final BBKey key, final int from, final int to);
 }
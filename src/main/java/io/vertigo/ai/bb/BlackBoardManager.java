@@ -30,4 +30,20 @@ public interface BlackBoardManager extends Manager {
 	default BlackBoard connect(final BBKey rootKey) {
 		return connect(MAIN_STORE_NAME, rootKey);
 	}
+
+	/**
+	 * Connects to a blackboard identified by its name, with an asynchronous api.
+	 * @param storeName the name of the blackboard
+	 * @param rootKey the rootKey defining the subtree in which we are working
+	 * @return the asynchronous blackboard
+	 */
+	AsyncBlackBoard connectAsync(String storeName, BBKey rootKey);
+
+	/**
+	 * Connects to the main blackboard, with an asynchronous api.
+	 * @return the main asynchronous blackboard
+	 */
+	default AsyncBlackBoard connectAsync(final BBKey rootKey) {
+		return connectAsync(MAIN_STORE_NAME, rootKey);
+	}
 }
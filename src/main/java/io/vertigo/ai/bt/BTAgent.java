@@ -0,0 +1,26 @@
+package io.vertigo.ai.bt;
+
+/**
+ * An agent ticked by the scheduler (see BehaviorTreeSchedulerManager.register).
+ *
+ * An agent is ticked while its BT is running.
+ * Once its BT has succeeded or failed, it's skipped until something changes (a new message, a key of its blackboard...).
+ */
+public interface BTAgent extends AutoCloseable {
+
+	/**
+	 * Notifies that something has changed : the agent is ticked at its next period.
+	 */
+	void changed();
+
+	/**
+	 * @return the status of the last tick, or null if the agent has not been ticked yet
+	 */
+	BTStatus getLastStatus();
+
+	/**
+	 * Unregisters the agent : it's not ticked anymore.
+	 */
+	@Override
+	void close();
+}
@@ -0,0 +1,33 @@
+package io.vertigo.ai.bt;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * A task that doesn't block the thread while waiting for I/O (a remote call...).
+ *
+ * Evaluated asynchronously, the task returns the pending status.
+ * Evaluated synchronously, the calling thread waits for this status.
+ */
+final class BTAsyncTask implements BTNode {
+	private final Supplier<? extends CompletionStage<BTStatus>> task;
+
+	BTAsyncTask(final Supplier<? extends CompletionStage<BTStatus>> task) {
+		Assertion.check()
+				.isNotNull(task);
+		//---
+		this.task = task;
+	}
+
+	@Override
+	public BTStatus eval() {
+		return task.get().toCompletableFuture().join();
+	}
+
+	@Override
+	public CompletionStage<BTStatus> evalAsync() {
+		return task.get();
+	}
+}
@@ -33,4 +33,8 @@ public final class BTCondition implements BTNode {
 				? BTStatus.Succeeded
 				: BTStatus.Failed;
 	}
+
+	Supplier<Boolean> getTest() {
+		return test;
+	}
 }
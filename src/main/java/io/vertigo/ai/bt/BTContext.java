@@ -0,0 +1,142 @@
+package io.vertigo.ai.bt;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
+
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * The execution state of a BT.
+ *
+ * The nodes are memory less : the state is kept by the context, outside of the tree.
+ * When a child returns Running, its composite records the index of this child.
+ * The next evaluation resumes the composite at this child, the children already done are not evaluated again.
+ *
+ * A composite is identified by its path in the tree (the indexes of the children from the root) : the state is only valid for the same tree.
+ * The state can be saved as a string (for example in a blackboard) to resume the BT later, on another node.
+ *
+ * A context is used by a single evaluation at a time, it's not thread safe.
+ * Evaluated asynchronously, the stages of the evaluation follow each other, possibly on different threads.
+ */
+public final class BTContext {
+	//the running child of each composite, by path
+	private final Map<String, Integer> runningChildren;
+	//the path of the node being evaluated
+	private final StringBuilder path = new StringBuilder();
+
+	/**
+	 * Constructor of a new context, without state.
+	 */
+	public BTContext() {
+		this(new HashMap<>());
+	}
+
+	private BTContext(final Map<String, Integer> runningChildren) {
+		this.runningChildren = runningChildren;
+	}
+
+	/**
+	 * Restores a context from its state.
+	 *
+	 * @param state the state (see getState)
+	 * @return the context
+	 */
+	public static BTContext of(final String state) {
+		Assertion.check().isNotNull(state);
+		//---
+		final Map<String, Integer> runningChildren = new HashMap<>();
+		for (final String entry : state.split(";")) {
+			if (!entry.isEmpty()) {
+				final int separator = entry.indexOf('=');
+				Assertion.check().isTrue(separator >= 0, "the state of the BT '{0}' is malformed", state);
+				runningChildren.put(entry.substring(0, separator), Integer.valueOf(entry.substring(separator + 1)));
+			}
+		}
+		return new BTContext(runningChildren);
+	}
+
+	/**
+	 * @return the state, to be restored with BTContext.of
+	 */
+	public String getState() {
+		return runningChildren.entrySet().stream()
+				.map(entry -> entry.getKey() + '=' + entry.getValue())
+				.collect(Collectors.joining(";"));
+	}
+
+	/**
+	 * @return if there is nothing to resume (the last evaluation has not returned Running)
+	 */
+	public boolean isEmpty() {
+		return runningChildren.isEmpty();
+	}
+
+	/**
+	 * Evaluates a child of the composite being evaluated.
+	 *
+	 * @param index the index of the child in its composite
+	 * @param child the child
+	 * @return the status of the child
+	 */
+	public BTStatus eval(final int index, final BTNode child) {
+		final int length = path.length();
+		path.append('/').append(index);
+		try {
+			return child.eval(this);
+		} finally {
+			path.setLength(length);
+		}
+	}
+
+	/**
+	 * Evaluates asynchronously a child of the composite being evaluated.
+	 * The child gets its own context sharing the same state : its path is kept while the evaluation continues on another thread.
+	 *
+	 * @param index the index of the child in its composite
+	 * @param child the child
+	 * @return the status of the child, when done
+	 */
+	public CompletionStage<BTStatus> evalAsync(final int index, final BTNode child) {
+		final BTContext childContext = new BTContext(runningChildren);
+		childContext.path.append(path).append('/').append(index);
+		return child.evalAsync(childContext);
+	}
+
+	/**
+	 * Returns the child to resume for the composite being evaluated.
+	 * The state is consumed : it's recorded again by running if the child is still running.
+	 *
+	 * @return the index of the running child, or -1 if the composite is not resumed
+	 */
+	public int resume() {
+		if (runningChildren.isEmpty()) {
+			return -1;
+		}
+		final Integer index = runningChildren.remove(path.toString());
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Forgets the running children of the node being evaluated and of its descendants.
+	 * Used by a node returning another status than Running while its children are running.
+	 */
+	public void clear() {
+		if (runningChildren.isEmpty()) {
+			return;
+		}
+		final String prefix = path.toString();
+		runningChildren.keySet().removeIf(key -> key.startsWith(prefix)
+				&& (key.length() == prefix.length() || key.charAt(prefix.length()) == '/'));
+	}
+
+	/**
+	 * Records that a child of the composite being evaluated is running.
+	 *
+	 * @param index the index of the running child
+	 */
+	public void running(final int index) {
+		runningChildren.put(path.toString(), index);
+	}
+}
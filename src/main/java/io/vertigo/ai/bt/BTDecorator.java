@@ -1,5 +1,6 @@
 package io.vertigo.ai.bt;
 
+import java.util.concurrent.CompletionStage;
 import java.util.function.Function;
 
 import io.vertigo.core.lang.Assertion;
@@ -24,9 +25,45 @@ final class BTDecorator implements BTNode {
 		this.transformer = transformer;
 	}
 
+	BTNode getNode() {
+		return node;
+	}
+
+	Function<BTStatus, BTStatus> getTransformer() {
+		return transformer;
+	}
+
 	@Override
 	public BTStatus eval() {
 		final var status = node.eval();
 		return transformer.apply(status);
 	}
+
+	@Override
+	public BTStatus eval(final BTContext context) {
+		//the decorated node is resumed, the decorator itself has no state
+		final var status = transformer.apply(node.eval(context));
+		if (!status.isRunning()) {
+			//the running children are not resumed, the decorator is done
+			context.clear();
+		}
+		return status;
+	}
+
+	@Override
+	public CompletionStage<BTStatus> evalAsync() {
+		return node.evalAsync().thenApply(transformer);
+	}
+
+	@Override
+	public CompletionStage<BTStatus> evalAsync(final BTContext context) {
+		return node.evalAsync(context).thenApply(nodeStatus -> {
+			final var status = transformer.apply(nodeStatus);
+			if (!status.isRunning()) {
+				//the running children are not resumed, the decorator is done
+				context.clear();
+			}
+			return status;
+		});
+	}
 }
@@ -1,5 +1,8 @@
 package io.vertigo.ai.bt;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 import io.vertigo.core.lang.Assertion;
 
 /**
@@ -28,18 +31,42 @@ final class BTLoop implements BTNode {
 		this.untilCondition = untilCondition;
 	}
 
+	BTCondition getWhileCondition() {
+		return whileCondition;
+	}
+
+	BTNode getNode() {
+		return node;
+	}
+
+	BTCondition getUntilCondition() {
+		return untilCondition;
+	}
+
 	@Override
 	public BTStatus eval() {
-		for (int i = 0; i < MAX_LOOPS; i++) {
-			final var whileTest = whileCondition.eval();
-			//breaks the loop when the while condition failed
-			if (whileTest.isFailed()) {
-				return BTStatus.Succeeded;
+		return eval(new BTContext());
+	}
+
+	@Override
+	public BTStatus eval(final BTContext context) {
+		final int resumedRound = context.resume();
+		for (int i = Math.max(0, resumedRound); i < MAX_LOOPS; i++) {
+			//the while condition of a resumed round has already been tested
+			if (i != resumedRound) {
+				final var whileTest = whileCondition.eval();
+				//breaks the loop when the while condition failed
+				if (whileTest.isFailed()) {
+					return BTStatus.Succeeded;
+				}
 			}
 
-			final var status = node.eval();
+			final var status = context.eval(0, node);
 			//loops when succeeded until failure or a running task
 			if (!status.isSucceeded()) {
+				if (status.isRunning()) {
+					context.running(i);
+				}
 				return status;
 			}
 
@@ -52,4 +79,51 @@ final class BTLoop implements BTNode {
 		return BTStatus.Failed;
 	}
 
+	@Override
+	public CompletionStage<BTStatus> evalAsync() {
+		return evalAsync(new BTContext());
+	}
+
+	@Override
+	public CompletionStage<BTStatus> evalAsync(final BTContext context) {
+		final int resumedRound = context.resume();
+		return evalAsync(context, Math.max(0, resumedRound), resumedRound);
+	}
+
+	private CompletionStage<BTStatus> evalAsync(final BTContext context, final int from, final int resumedRound) {
+		for (int i = from; i < MAX_LOOPS; i++) {
+			//the conditions are evaluated very quickly, they stay synchronous
+			//the while condition of a resumed round has already been tested
+			if (i != resumedRound && whileCondition.eval().isFailed()) {
+				return CompletableFuture.completedFuture(BTStatus.Succeeded);
+			}
+			final int round = i;
+			final CompletableFuture<BTStatus> future = context.evalAsync(0, node).toCompletableFuture();
+			if (!future.isDone()) {
+				return future.thenCompose(status -> {
+					if (!status.isSucceeded()) {
+						return done(context, round, status);
+					}
+					if (untilCondition.eval().isSucceeded()) {
+						return CompletableFuture.completedFuture(BTStatus.Succeeded);
+					}
+					return evalAsync(context, round + 1, -1);
+				});
+			}
+			if (future.isCompletedExceptionally() || !future.join().isSucceeded()) {
+				return future.thenCompose(status -> done(context, round, status));
+			}
+			if (untilCondition.eval().isSucceeded()) {
+				return CompletableFuture.completedFuture(BTStatus.Succeeded);
+			}
+		}
+		return CompletableFuture.completedFuture(BTStatus.Failed);
+	}
+
+	private static CompletionStage<BTStatus> done(final BTContext context, final int round, final BTStatus status) {
+		if (status.isRunning()) {
+			context.running(round);
+		}
+		return CompletableFuture.completedFuture(status);
+	}
 }
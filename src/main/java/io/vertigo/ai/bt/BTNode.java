@@ -1,8 +1,12 @@
 package io.vertigo.ai.bt;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 /**
  * BT are composed of nodes 'BTNode' with a single root 'BTRoot' 
  * This nodes are memory less, they don't store data.
+ * The state of an execution (the running children) is kept by a context 'BTContext'.
  * 
  * a BTNode have only one method called eval()
  * this method returns a status 'BTStatus', 
@@ -36,4 +40,37 @@ public interface BTNode {
 	 * @return status after the node evaluation
 	 */
 	BTStatus eval();
+
+	/**
+	 * Evaluates the node within an execution context.
+	 * The composites resume at their running child, the other nodes are simply evaluated.
+	 *
+	 * @param context the execution context
+	 * @return status after the node evaluation
+	 */
+	default BTStatus eval(final BTContext context) {
+		return eval();
+	}
+
+	/**
+	 * Evaluates the node without blocking the calling thread.
+	 * The composites wait for their children asynchronously.
+	 * By default, the node is evaluated synchronously : the tasks waiting for I/O override this method.
+	 *
+	 * @return the status after the node evaluation, when done
+	 */
+	default CompletionStage<BTStatus> evalAsync() {
+		return CompletableFuture.completedFuture(eval());
+	}
+
+	/**
+	 * Evaluates the node within an execution context, without blocking the calling thread.
+	 * The composites resume at their running child, the other nodes are simply evaluated asynchronously.
+	 *
+	 * @param context the execution context
+	 * @return the status after the node evaluation, when done
+	 */
+	default CompletionStage<BTStatus> evalAsync(final BTContext context) {
+		return evalAsync();
+	}
 }
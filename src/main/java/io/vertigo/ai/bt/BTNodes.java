@@ -1,6 +1,8 @@
 package io.vertigo.ai.bt;
 
 import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -54,6 +56,72 @@ public final class BTNodes {
 				: new BTSelector(nodes);
 	}
 
+	/**
+	 * Creates a parallel.
+	 * Evaluates all the nodes at the same time
+	 * Succeeds when all nodes succeed
+	 * Fails when one node fails, the other nodes are cancelled
+	 *
+	 * @param nodes nodes
+	 * @return parallel
+	 */
+	public static BTNode parallel(final BTNode... nodes) {
+		return parallel(List.of(nodes));
+	}
+
+	public static BTNode parallel(final List<? extends BTNode> nodes) {
+		Assertion.check()
+				.isNotNull(nodes);
+		//---
+		return parallel(nodes.size(), nodes);
+	}
+
+	/**
+	 * Creates a parallel that succeeds as soon as one node succeeds.
+	 * Fails when all nodes fail
+	 *
+	 * @param nodes nodes
+	 * @return parallel
+	 */
+	public static BTNode parallelAny(final BTNode... nodes) {
+		return parallelAny(List.of(nodes));
+	}
+
+	public static BTNode parallelAny(final List<? extends BTNode> nodes) {
+		Assertion.check()
+				.isNotNull(nodes);
+		//---
+		//no node can succeed
+		if (nodes.isEmpty()) {
+			return fail();
+		}
+		return parallel(1, nodes);
+	}
+
+	/**
+	 * Creates a parallel that succeeds when N nodes succeed.
+	 * Fails when too many nodes fail to reach N successes
+	 *
+	 * @param successes the number of nodes that must succeed
+	 * @param nodes nodes
+	 * @return parallel
+	 */
+	public static BTNode parallel(final int successes, final List<? extends BTNode> nodes) {
+		return parallel(successes, BTParallel.DEFAULT_EXECUTOR, nodes);
+	}
+
+	/**
+	 * Creates a parallel evaluating its nodes with a specific executor.
+	 *
+	 * @param successes the number of nodes that must succeed
+	 * @param executor the executor of the nodes
+	 * @param nodes nodes
+	 * @return parallel
+	 */
+	public static BTNode parallel(final int successes, final Executor executor, final List<? extends BTNode> nodes) {
+		return new BTParallel(successes, executor, nodes);
+	}
+
 	public static BTNode guard(final BTNode node, final BTCondition... conditions) {
 		return guard(node, List.of(conditions));
 	}
@@ -121,6 +189,17 @@ public final class BTNodes {
 		return () -> BTStatus.Running;
 	}
 
+	/**
+	 * Creates an asynchronous task.
+	 * The composites evaluated asynchronously don't block while the task is pending.
+	 *
+	 * @param task the task returning its status when done
+	 * @return the task
+	 */
+	public static BTNode async(final Supplier<? extends CompletionStage<BTStatus>> task) {
+		return new BTAsyncTask(task);
+	}
+
 	/**
 	 * Decorator
 	 * This method is useful to build a node that returns a different status that its input.
@@ -145,4 +224,17 @@ public final class BTNodes {
 	public static BTNode transform(final BTNode node, final BTStatus status) {
 		return new BTDecorator(node, anyStatus -> status);
 	}
+
+	/**
+	 * Compiles a BT into a flat program.
+	 * The program returns the same status as the tree, without walking the graph of nodes :
+	 * it's useful for the large trees ticked very often.
+	 * The nodes that are not composites (tasks...) are called as is.
+	 *
+	 * @param rootNode the root node of the tree
+	 * @return the compiled tree
+	 */
+	public static BTNode compile(final BTNode rootNode) {
+		return BTProgram.compile(rootNode);
+	}
 }
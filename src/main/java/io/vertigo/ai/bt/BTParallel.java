@@ -0,0 +1,145 @@
+package io.vertigo.ai.bt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import io.vertigo.core.lang.Assertion;
+import io.vertigo.core.lang.WrappedException;
+
+/**
+ * A parallel evaluates all its nodes at the same time.
+ *
+ * It succeeds when a number of nodes succeed (all, any or N of M).
+ * It fails when too many nodes fail to reach this number.
+ * As soon as the status is known, the nodes still evaluated are cancelled (their thread is interrupted).
+ * Otherwise, when some nodes are running, the parallel is running.
+ *
+ * The nodes are evaluated by an executor : by default an unbounded pool of daemon threads, as the nodes are often waiting for I/O.
+ * All the nodes are evaluated again at each evaluation, the parallel is never resumed at a running node.
+ * When evaluated asynchronously, no thread waits for the nodes, but the losers are only cancelled, not interrupted.
+ */
+final class BTParallel implements BTNode {
+	private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+	static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+		final Thread thread = new Thread(runnable, "bt-parallel-" + THREAD_COUNT.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final int successes;
+	private final Executor executor;
+	private final List<BTNode> nodes;
+
+	BTParallel(final int successes, final Executor executor, final List<? extends BTNode> nodes) {
+		Assertion.check()
+				.isTrue(successes >= 0, "successes must be >= 0")
+				.isNotNull(executor)
+				.isNotNull(nodes)
+				.isTrue(successes <= nodes.size(), "successes must be <= the number of nodes");
+		//---
+		this.successes = successes;
+		this.executor = executor;
+		this.nodes = List.copyOf(nodes);
+	}
+
+	@Override
+	public BTStatus eval() {
+		final CompletionService<BTStatus> completionService = new ExecutorCompletionService<>(executor);
+		final List<Future<BTStatus>> futures = new ArrayList<>(nodes.size());
+		for (final BTNode node : nodes) {
+			futures.add(completionService.submit(node::eval));
+		}
+		int succeeded = 0;
+		int failed = 0;
+		try {
+			for (int done = 0;; done++) {
+				final BTStatus result = decide(succeeded, failed, done);
+				if (result != null) {
+					return result;
+				}
+				final BTStatus status = completionService.take().get();
+				if (status.isSucceeded()) {
+					succeeded++;
+				} else if (status.isFailed()) {
+					failed++;
+				}
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw WrappedException.wrap(e);
+		} catch (final ExecutionException e) {
+			throw WrappedException.wrap(e.getCause());
+		} finally {
+			//the losers are cancelled
+			futures.forEach(future -> future.cancel(true));
+		}
+	}
+
+	@Override
+	public CompletionStage<BTStatus> evalAsync() {
+		final BTStatus empty = decide(0, 0, 0);
+		if (empty != null) {
+			return CompletableFuture.completedFuture(empty);
+		}
+		final CompletableFuture<BTStatus> result = new CompletableFuture<>();
+		final List<CompletableFuture<BTStatus>> futures = new ArrayList<>(nodes.size());
+		for (final BTNode node : nodes) {
+			//the synchronous nodes are evaluated by the executor, not by the calling thread
+			futures.add(CompletableFuture.supplyAsync(node::evalAsync, executor).thenCompose(Function.identity()));
+		}
+		// succeeded, failed, done
+		final int[] counters = new int[3];
+		for (final CompletableFuture<BTStatus> future : futures) {
+			future.whenComplete((status, error) -> {
+				if (error != null) {
+					result.completeExceptionally(error);
+					return;
+				}
+				final BTStatus decision;
+				synchronized (counters) {
+					if (status.isSucceeded()) {
+						counters[0]++;
+					} else if (status.isFailed()) {
+						counters[1]++;
+					}
+					counters[2]++;
+					decision = decide(counters[0], counters[1], counters[2]);
+				}
+				if (decision != null) {
+					result.complete(decision);
+				}
+			});
+		}
+		//the losers are cancelled
+		result.whenComplete((status, error) -> futures.forEach(future -> future.cancel(true)));
+		return result;
+	}
+
+	/**
+	 * @return the status of the parallel, or null while it's not known
+	 */
+	private BTStatus decide(final int succeeded, final int failed, final int done) {
+		if (succeeded >= successes) {
+			return BTStatus.Succeeded;
+		}
+		//the nodes left can't succeed enough
+		if (failed > nodes.size() - successes) {
+			return BTStatus.Failed;
+		}
+		if (done == nodes.size()) {
+			return BTStatus.Running;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,224 @@
+package io.vertigo.ai.bt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * A BT compiled into a flat array of instructions.
+ *
+ * Each node of the tree is an instruction of 3 ints : the opcode, an operand and the end of the node (the index of the next sibling).
+ * The children of a composite follow it in the array.
+ * The interpreter is a single switch on the opcodes : the composites are not called through the BTNode interface,
+ * and the instructions of a tree are contiguous in memory.
+ *
+ * The conditions always succeeding or failing are compiled as constants.
+ * The other nodes (tasks, custom nodes...) are called as is.
+ *
+ * A program has no state, like the tree.
+ * The evaluation within a context (to resume the running children) and the asynchronous evaluation are done by the tree.
+ */
+final class BTProgram implements BTNode {
+	private static final int OP_SUCCEED = 0;
+	private static final int OP_FAIL = 1;
+	private static final int OP_CONDITION = 2; // operand : the index of the test
+	private static final int OP_NODE = 3; // operand : the index of the node
+	private static final int OP_SEQUENCE = 4;
+	private static final int OP_SELECTOR = 5;
+	private static final int OP_LOOP = 6; // children : while condition, node, until condition
+	private static final int OP_TRY = 7; // operand : the number of tries
+	private static final int OP_DECORATOR = 8; // operand : the index of the transformer
+	private static final int INSTRUCTION_SIZE = 3;
+
+	private final BTNode rootNode;
+	private final int[] code;
+	private final Supplier<Boolean>[] tests;
+	private final BTNode[] nodes;
+	private final Function<BTStatus, BTStatus>[] transformers;
+
+	@SuppressWarnings("unchecked")
+	private BTProgram(
+			final BTNode rootNode,
+			final int[] code,
+			final List<Supplier<Boolean>> tests,
+			final List<BTNode> nodes,
+			final List<Function<BTStatus, BTStatus>> transformers) {
+		this.rootNode = rootNode;
+		this.code = code;
+		this.tests = tests.toArray(Supplier[]::new);
+		this.nodes = nodes.toArray(BTNode[]::new);
+		this.transformers = transformers.toArray(Function[]::new);
+	}
+
+	static BTProgram compile(final BTNode rootNode) {
+		Assertion.check()
+				.isNotNull(rootNode);
+		//---
+		if (rootNode instanceof BTProgram) {
+			return (BTProgram) rootNode;
+		}
+		final Compiler compiler = new Compiler();
+		compiler.emit(rootNode);
+		return new BTProgram(rootNode, Arrays.copyOf(compiler.code, compiler.size), compiler.tests, compiler.nodes, compiler.transformers);
+	}
+
+	@Override
+	public BTStatus eval() {
+		return exec(0);
+	}
+
+	@Override
+	public BTStatus eval(final BTContext context) {
+		return rootNode.eval(context);
+	}
+
+	@Override
+	public CompletionStage<BTStatus> evalAsync() {
+		return rootNode.evalAsync();
+	}
+
+	@Override
+	public CompletionStage<BTStatus> evalAsync(final BTContext context) {
+		return rootNode.evalAsync(context);
+	}
+
+	private BTStatus exec(final int pc) {
+		switch (code[pc]) {
+			case OP_SUCCEED:
+				return BTStatus.Succeeded;
+			case OP_FAIL:
+				return BTStatus.Failed;
+			case OP_CONDITION:
+				return tests[code[pc + 1]].get()
+						? BTStatus.Succeeded
+						: BTStatus.Failed;
+			case OP_NODE:
+				return nodes[code[pc + 1]].eval();
+			case OP_SEQUENCE:
+				for (int child = pc + INSTRUCTION_SIZE; child < code[pc + 2]; child = code[child + 2]) {
+					final BTStatus status = exec(child);
+					if (!status.isSucceeded()) {
+						return status;
+					}
+				}
+				return BTStatus.Succeeded;
+			case OP_SELECTOR:
+				for (int child = pc + INSTRUCTION_SIZE; child < code[pc + 2]; child = code[child + 2]) {
+					final BTStatus status = exec(child);
+					if (!status.isFailed()) {
+						return status;
+					}
+				}
+				return BTStatus.Failed;
+			case OP_LOOP:
+				return execLoop(pc);
+			case OP_TRY:
+				for (int i = 0; i < code[pc + 1]; i++) {
+					final BTStatus status = exec(pc + INSTRUCTION_SIZE);
+					if (!status.isFailed()) {
+						return status;
+					}
+				}
+				return BTStatus.Failed;
+			case OP_DECORATOR:
+				return transformers[code[pc + 1]].apply(exec(pc + INSTRUCTION_SIZE));
+			default:
+				throw new IllegalStateException("Unknown opcode " + code[pc] + " at " + pc);
+		}
+	}
+
+	private BTStatus execLoop(final int pc) {
+		final int whileCondition = pc + INSTRUCTION_SIZE;
+		final int node = code[whileCondition + 2];
+		final int untilCondition = code[node + 2];
+		for (int i = 0; i < BTLoop.MAX_LOOPS; i++) {
+			//breaks the loop when the while condition failed
+			if (exec(whileCondition).isFailed()) {
+				return BTStatus.Succeeded;
+			}
+			final BTStatus status = exec(node);
+			if (!status.isSucceeded()) {
+				return status;
+			}
+			//breaks the loop when the until condition succeeded
+			if (exec(untilCondition).isSucceeded()) {
+				return BTStatus.Succeeded;
+			}
+		}
+		return BTStatus.Failed;
+	}
+
+	private static final class Compiler {
+		private int[] code = new int[64];
+		private int size;
+		private final List<Supplier<Boolean>> tests = new ArrayList<>();
+		private final List<BTNode> nodes = new ArrayList<>();
+		private final List<Function<BTStatus, BTStatus>> transformers = new ArrayList<>();
+
+		private void emit(final BTNode node) {
+			if (node == BTCondition.SUCCEED) {
+				emitLeaf(OP_SUCCEED, 0);
+			} else if (node == BTCondition.FAIL) {
+				emitLeaf(OP_FAIL, 0);
+			} else if (node instanceof BTCondition) {
+				tests.add(((BTCondition) node).getTest());
+				emitLeaf(OP_CONDITION, tests.size() - 1);
+			} else if (node instanceof BTSequence) {
+				final int pc = begin(OP_SEQUENCE, 0);
+				((BTSequence) node).getNodes().forEach(this::emit);
+				end(pc);
+			} else if (node instanceof BTSelector) {
+				final int pc = begin(OP_SELECTOR, 0);
+				((BTSelector) node).getNodes().forEach(this::emit);
+				end(pc);
+			} else if (node instanceof BTLoop) {
+				final BTLoop loop = (BTLoop) node;
+				final int pc = begin(OP_LOOP, 0);
+				emit(loop.getWhileCondition());
+				emit(loop.getNode());
+				emit(loop.getUntilCondition());
+				end(pc);
+			} else if (node instanceof BTTry) {
+				final BTTry doTry = (BTTry) node;
+				final int pc = begin(OP_TRY, doTry.getTries());
+				emit(doTry.getNode());
+				end(pc);
+			} else if (node instanceof BTDecorator) {
+				final BTDecorator decorator = (BTDecorator) node;
+				transformers.add(decorator.getTransformer());
+				final int pc = begin(OP_DECORATOR, transformers.size() - 1);
+				emit(decorator.getNode());
+				end(pc);
+			} else if (node instanceof BTProgram) {
+				emit(((BTProgram) node).rootNode);
+			} else {
+				nodes.add(node);
+				emitLeaf(OP_NODE, nodes.size() - 1);
+			}
+		}
+
+		private void emitLeaf(final int opcode, final int operand) {
+			end(begin(opcode, operand));
+		}
+
+		private int begin(final int opcode, final int operand) {
+			if (size + INSTRUCTION_SIZE > code.length) {
+				code = Arrays.copyOf(code, code.length * 2);
+			}
+			final int pc = size;
+			code[pc] = opcode;
+			code[pc + 1] = operand;
+			size += INSTRUCTION_SIZE;
+			return pc;
+		}
+
+		private void end(final int pc) {
+			code[pc + 2] = size;
+		}
+	}
+}
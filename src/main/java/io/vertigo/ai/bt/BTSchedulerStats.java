@@ -0,0 +1,24 @@
+package io.vertigo.ai.bt;
+
+/**
+ * The metrics of the scheduler since its start.
+ *
+ * @param ticks the number of ticks
+ * @param skippedTicks the ticks skipped as the agents had no pending change
+ * @param overrunTicks the ticks skipped as the previous tick of the agent was not done
+ * @param deferredTicks the ticks deferred as too many ticks were pending
+ * @param failedTicks the ticks that have thrown an exception
+ * @param meanTickNanos the mean duration of a tick
+ * @param maxTickNanos the max duration of a tick
+ * @param ticksPerSecond the throughput
+ */
+public record BTSchedulerStats(
+		long ticks,
+		long skippedTicks,
+		long overrunTicks,
+		long deferredTicks,
+		long failedTicks,
+		long meanTickNanos,
+		long maxTickNanos,
+		double ticksPerSecond) {
+}
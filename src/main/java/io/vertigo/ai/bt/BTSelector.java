@@ -1,6 +1,8 @@
 package io.vertigo.ai.bt;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import io.vertigo.core.lang.Assertion;
 
@@ -25,15 +27,63 @@ final class BTSelector implements BTNode {
 		this.nodes = List.copyOf(nodes);
 	}
 
+	List<BTNode> getNodes() {
+		return nodes;
+	}
+
 	@Override
 	public BTStatus eval() {
-		for (final BTNode node : nodes) {
-			final var status = node.eval();
+		return eval(new BTContext());
+	}
+
+	@Override
+	public BTStatus eval(final BTContext context) {
+		//the nodes before the running one are not evaluated again
+		for (int i = Math.max(0, context.resume()); i < nodes.size(); i++) {
+			final var status = context.eval(i, nodes.get(i));
 			//continue on failure until success or a running task
 			if (!status.isFailed()) {
+				if (status.isRunning()) {
+					context.running(i);
+				}
 				return status;
 			}
 		}
 		return BTStatus.Failed;
 	}
+
+	@Override
+	public CompletionStage<BTStatus> evalAsync() {
+		return evalAsync(new BTContext());
+	}
+
+	@Override
+	public CompletionStage<BTStatus> evalAsync(final BTContext context) {
+		//the nodes before the running one are not evaluated again
+		return evalAsync(context, Math.max(0, context.resume()));
+	}
+
+	private CompletionStage<BTStatus> evalAsync(final BTContext context, final int from) {
+		for (int i = from; i < nodes.size(); i++) {
+			final int index = i;
+			final CompletableFuture<BTStatus> future = context.evalAsync(index, nodes.get(index)).toCompletableFuture();
+			//the nodes already done are chained in this loop, only the pending ones are composed
+			if (!future.isDone()) {
+				return future.thenCompose(status -> status.isFailed()
+						? evalAsync(context, index + 1)
+						: done(context, index, status));
+			}
+			if (future.isCompletedExceptionally() || !future.join().isFailed()) {
+				return future.thenCompose(status -> done(context, index, status));
+			}
+		}
+		return CompletableFuture.completedFuture(BTStatus.Failed);
+	}
+
+	private static CompletionStage<BTStatus> done(final BTContext context, final int index, final BTStatus status) {
+		if (status.isRunning()) {
+			context.running(index);
+		}
+		return CompletableFuture.completedFuture(status);
+	}
 }
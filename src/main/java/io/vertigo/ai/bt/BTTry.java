@@ -1,5 +1,8 @@
 package io.vertigo.ai.bt;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 import io.vertigo.core.lang.Assertion;
 
 /**
@@ -22,16 +25,68 @@ final class BTTry implements BTNode {
 		this.node = node;
 	}
 
+	int getTries() {
+		return tries;
+	}
+
+	BTNode getNode() {
+		return node;
+	}
+
 	@Override
 	public BTStatus eval() {
-		for (int i = 0; i < tries; i++) {
-			final var status = node.eval();
+		return eval(new BTContext());
+	}
+
+	@Override
+	public BTStatus eval(final BTContext context) {
+		//a resumed try keeps its number of tries
+		for (int i = Math.max(0, context.resume()); i < tries; i++) {
+			final var status = context.eval(0, node);
 			//loops until succeeded or running
-			if (status.isSucceeded() || status.isRunning()) {
+			if (status.isRunning()) {
+				context.running(i);
+				return status;
+			}
+			if (status.isSucceeded()) {
 				return status;
 			}
 		}
 		return BTStatus.Failed;
 	}
 
+	@Override
+	public CompletionStage<BTStatus> evalAsync() {
+		return evalAsync(new BTContext());
+	}
+
+	@Override
+	public CompletionStage<BTStatus> evalAsync(final BTContext context) {
+		//a resumed try keeps its number of tries
+		return evalAsync(context, Math.max(0, context.resume()));
+	}
+
+	private CompletionStage<BTStatus> evalAsync(final BTContext context, final int from) {
+		for (int i = from; i < tries; i++) {
+			final int index = i;
+			final CompletableFuture<BTStatus> future = context.evalAsync(0, node).toCompletableFuture();
+			if (!future.isDone()) {
+				return future.thenCompose(status -> status.isFailed()
+						? evalAsync(context, index + 1)
+						: done(context, index, status));
+			}
+			//loops until succeeded or running
+			if (future.isCompletedExceptionally() || !future.join().isFailed()) {
+				return future.thenCompose(status -> done(context, index, status));
+			}
+		}
+		return CompletableFuture.completedFuture(BTStatus.Failed);
+	}
+
+	private static CompletionStage<BTStatus> done(final BTContext context, final int index, final BTStatus status) {
+		if (status.isRunning()) {
+			context.running(index);
+		}
+		return CompletableFuture.completedFuture(status);
+	}
 }
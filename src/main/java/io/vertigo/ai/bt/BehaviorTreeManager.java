@@ -1,5 +1,9 @@
 package io.vertigo.ai.bt;
 
+import java.util.concurrent.CompletionStage;
+
+import io.vertigo.ai.bb.BBKey;
+import io.vertigo.ai.bb.BlackBoard;
 import io.vertigo.core.node.component.Manager;
 
 /**
@@ -20,4 +24,42 @@ public interface BehaviorTreeManager extends Manager {
 	 */
 	BTStatus run(BTNode rootNode);
 
+	/**
+	 * Runs a BT without blocking the calling thread.
+	 * The tasks waiting for I/O release the thread, the other nodes are evaluated synchronously.
+	 * @param rootNode the root node
+	 * @return the status, when done
+	 */
+	CompletionStage<BTStatus> runAsync(BTNode rootNode);
+
+	/**
+	 * Runs a BT within a context, without blocking the calling thread.
+	 * The composites resume at the children left running by the previous run with the same context.
+	 * The context must not be used by another run until this one is done.
+	 * @param rootNode the root node
+	 * @param context the execution context
+	 * @return the status, when done
+	 */
+	CompletionStage<BTStatus> runAsync(BTNode rootNode, BTContext context);
+
+	/**
+	 * Runs a BT within a context.
+	 * The composites resume at the children left running by the previous run with the same context.
+	 * @param rootNode the root node
+	 * @param context the execution context
+	 * @return the status
+	 */
+	BTStatus run(BTNode rootNode, BTContext context);
+
+	/**
+	 * Runs a BT with its state persisted in a blackboard.
+	 * The state is read before the run and written after, so the BT can be resumed by another node.
+	 * The key is deleted once the BT has no more running child.
+	 * @param rootNode the root node
+	 * @param blackBoard the blackboard
+	 * @param stateKey the key of the state
+	 * @return the status
+	 */
+	BTStatus run(BTNode rootNode, BlackBoard blackBoard, BBKey stateKey);
+
 }
@@ -0,0 +1,30 @@
+package io.vertigo.ai.bt;
+
+import io.vertigo.core.node.component.Manager;
+
+/**
+ * Ticks the BT of many agents at a fixed rate.
+ *
+ * The ticks are evaluated by a pool of threads stealing the work of each other.
+ * The BT are evaluated asynchronously : a tick waiting for I/O doesn't hold a thread.
+ * An agent is only ticked when it has something to do : its BT is running or it has changed.
+ * A tick is never queued behind the previous tick of the same agent : when a tick overruns its period, the next one is skipped.
+ */
+public interface BehaviorTreeSchedulerManager extends Manager {
+
+	/**
+	 * Registers an agent.
+	 * The BT is resumed at its running children from one tick to the next.
+	 * The agent is ticked at the next period.
+	 *
+	 * @param rootNode the root node of the BT of the agent
+	 * @param periodMillis the period of the ticks
+	 * @return the agent
+	 */
+	BTAgent register(BTNode rootNode, long periodMillis);
+
+	/**
+	 * @return the metrics of the scheduler
+	 */
+	BTSchedulerStats getStats();
+}
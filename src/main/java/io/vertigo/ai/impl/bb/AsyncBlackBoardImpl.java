@@ -0,0 +1,175 @@
+package io.vertigo.ai.impl.bb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+import io.vertigo.ai.bb.AsyncBlackBoard;
+import io.vertigo.ai.bb.BBKey;
+import io.vertigo.ai.bb.BBKeyPattern;
+import io.vertigo.ai.bb.BlackBoard.Type;
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * The asynchronous blackboard.
+ *
+ * A read is sent with the read of the type of its key, the type is checked when both are received.
+ * So a read never waits for another round trip and the operations keep the order in which they were sent.
+ * A pop on a key of another type has no effect, it's simply rejected once the type is known.
+ */
+final class AsyncBlackBoardImpl implements AsyncBlackBoard {
+	private final AsyncBlackBoardStore asyncBlackBoardStore;
+	private final BBKey rootKey;
+
+	AsyncBlackBoardImpl(final AsyncBlackBoardStore asyncBlackBoardStore, final BBKey rootKey) {
+		Assertion.check()
+				.isNotNull(asyncBlackBoardStore)
+				.isNotNull(rootKey);
+		//---
+		this.asyncBlackBoardStore = asyncBlackBoardStore;
+		this.rootKey = rootKey;
+	}
+
+	//------------------------------------
+	//--- Keys
+	//------------------------------------
+	@Override
+	public CompletionStage<Boolean> exists(final BBKey key) {
+		return asyncBlackBoardStore.exists(resolve(key));
+	}
+
+	@Override
+	public CompletionStage<Void> delete(final BBKeyPattern keyPattern) {
+		Assertion.check().isNotNull(keyPattern);
+		//---
+		return asyncBlackBoardStore.delete(keyPattern.indent(rootKey.key()));
+	}
+
+	@Override
+	public CompletionStage<Type> getType(final BBKey key) {
+		return asyncBlackBoardStore.getType(resolve(key));
+	}
+
+	//------------------------------------
+	//--- KV
+	//------------------------------------
+	@Override
+	public CompletionStage<Map<BBKey, String>> getAll(final Collection<BBKey> keys) {
+		Assertion.check().isNotNull(keys);
+		//---
+		final List<BBKey> keyList = List.copyOf(keys);
+		final List<BBKey> resolvedKeys = new ArrayList<>(keyList.size());
+		for (final BBKey key : keyList) {
+			resolvedKeys.add(resolve(key));
+		}
+		return asyncBlackBoardStore.getAll(resolvedKeys)
+				.thenApply(values -> {
+					final Map<BBKey, String> result = new LinkedHashMap<>();
+					for (int i = 0; i < keyList.size(); i++) {
+						if (values.get(i) != null) {
+							result.put(keyList.get(i), values.get(i));
+						}
+					}
+					return result;
+				});
+	}
+
+	@Override
+	public CompletionStage<Void> putAll(final Map<BBKey, ?> values) {
+		Assertion.check().isNotNull(values);
+		//--- the types are checked by the store when writing
+		final Map<BBKey, Object> resolvedValues = new LinkedHashMap<>();
+		values.forEach((key, value) -> {
+			Assertion.check()
+					.isNotNull(key)
+					.isTrue(value instanceof String || value instanceof Integer, "the value of the key {0} must be a String or an Integer", key);
+			resolvedValues.put(resolve(key), value);
+		});
+		return asyncBlackBoardStore.putAll(resolvedValues);
+	}
+
+	@Override
+	public CompletionStage<String> getString(final BBKey key) {
+		final BBKey resolvedKey = resolve(key);
+		return checked(resolvedKey, Type.String, asyncBlackBoardStore.getString(resolvedKey));
+	}
+
+	@Override
+	public CompletionStage<Void> putString(final BBKey key, final String value) {
+		//--- the type is checked by the store when writing
+		return asyncBlackBoardStore.putString(resolve(key), value);
+	}
+
+	@Override
+	public CompletionStage<Integer> getInteger(final BBKey key) {
+		final BBKey resolvedKey = resolve(key);
+		return checked(resolvedKey, Type.Integer, asyncBlackBoardStore.getInteger(resolvedKey));
+	}
+
+	@Override
+	public CompletionStage<Void> putInteger(final BBKey key, final Integer value) {
+		//--- the type is checked by the store when writing
+		return asyncBlackBoardStore.putInteger(resolve(key), value);
+	}
+
+	@Override
+	public CompletionStage<Void> incrBy(final BBKey key, final int value) {
+		//--- the type is checked by the store when writing
+		return asyncBlackBoardStore.incrBy(resolve(key), value);
+	}
+
+	//------------------------------------
+	//- List
+	//------------------------------------
+	@Override
+	public CompletionStage<Long> listSize(final BBKey key) {
+		final BBKey resolvedKey = resolve(key);
+		return checked(resolvedKey, Type.List, asyncBlackBoardStore.listSize(resolvedKey));
+	}
+
+	@Override
+	public CompletionStage<Void> listPush(final BBKey key, final String value) {
+		Assertion.check()
+				.isNotNull(key)
+				.isNotNull(value);
+		//--- the type is checked by the store when writing
+		return asyncBlackBoardStore.listPush(resolve(key), value);
+	}
+
+	@Override
+	public CompletionStage<String> listPop(final BBKey key) {
+		final BBKey resolvedKey = resolve(key);
+		return checked(resolvedKey, Type.List, asyncBlackBoardStore.listPop(resolvedKey));
+	}
+
+	@Override
+	public CompletionStage<List<String>> listRange(final BBKey key, final int from, final int to) {
+		final BBKey resolvedKey = resolve(key);
+		return checked(resolvedKey, Type.List, asyncBlackBoardStore.listRange(resolvedKey, from, to));
+	}
+
+	//------------------------------------
+	//- Utils                             -
+	//------------------------------------
+	private BBKey resolve(final BBKey key) {
+		Assertion.check().isNotNull(key);
+		//---
+		return rootKey.add(key);
+	}
+
+	/**
+	 * Completes an operation once the type of its key is known and checked.
+	 */
+	private <R> CompletionStage<R> checked(final BBKey resolvedKey, final Type type, final CompletionStage<R> operation) {
+		return asyncBlackBoardStore.getType(resolvedKey)
+				.thenCombine(operation, (storedType, result) -> {
+					if (storedType != null && storedType != type) {
+						throw new IllegalStateException("the type of the key " + storedType + " is not the one expected " + type);
+					}
+					return result;
+				});
+	}
+}
@@ -0,0 +1,46 @@
+package io.vertigo.ai.impl.bb;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+import io.vertigo.ai.bb.BBKey;
+import io.vertigo.ai.bb.BBKeyPattern;
+import io.vertigo.ai.bb.BlackBoard.Type;
+
+/**
+ * The asynchronous api of a store of blackboards.
+ * The operations have the same semantics as the ones of BlackBoardStorePlugin, the keys are already resolved.
+ *
+ * The operations sent by a single thread must be executed in order.
+ */
+public interface AsyncBlackBoardStore {
+
+	CompletionStage<Boolean> exists(final BBKey key);
+
+	CompletionStage<Void> delete(final BBKeyPattern keyPattern);
+
+	CompletionStage<Type> getType(final BBKey key);
+
+	CompletionStage<List<String>> getAll(final List<BBKey> keys);
+
+	CompletionStage<Void> putAll(final Map<BBKey, ?> values);
+
+	CompletionStage<String> getString(final BBKey key);
+
+	CompletionStage<Void> putString(final BBKey key, final String value);
+
+	CompletionStage<Integer> getInteger(final BBKey key);
+
+	CompletionStage<Void> putInteger(final BBKey key, final Integer value);
+
+	CompletionStage<Void> incrBy(final BBKey key, final int value);
+
+	CompletionStage<Long> listSize(final BBKey key);
+
+	CompletionStage<Void> listPush(final BBKey key, final String value);
+
+	CompletionStage<String> listPop(final BBKey key);
+
+	CompletionStage<List<String>> listRange(final BBKey key, final int from, final int to);
+}
@@ -0,0 +1,182 @@
+package io.vertigo.ai.impl.bb;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import io.vertigo.ai.bb.BBKey;
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * A message including {{keys}} with mustaches, parsed once.
+ *
+ * The template is compiled into a list of literals and keys.
+ * A key can itself be a template : {{/u/{{/u/idx}}/name}}.
+ *
+ * All the keys known at compile time (without nested template) are read in a single multi-get,
+ * the keys built by a nested template are read when they are known.
+ * The values are not parsed again : a value including mustaches is rendered as is.
+ *
+ * The compiled templates are immutable and cached.
+ * The cache is cleared when it's full : the templates still used are compiled again once.
+ */
+final class BBTemplate {
+	private static final String START_TOKEN = "{{";
+	private static final String END_TOKEN = "}}";
+	private static final int MAX_CACHED_TEMPLATES = 1024;
+	//the reads never take a lock
+	private static final Map<String, BBTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+	private sealed interface Part permits Literal, KeyPart {
+		//
+	}
+
+	private record Literal(String text) implements Part {
+		//
+	}
+
+	/**
+	 * A key, either known at compile time (static) or built by a nested template.
+	 */
+	private record KeyPart(int staticIndex, List<Part> keyParts) implements Part {
+		boolean isStatic() {
+			return staticIndex >= 0;
+		}
+	}
+
+	private final List<Part> parts;
+	private final List<BBKey> staticKeys;
+	private final int literalLength;
+
+	private BBTemplate(final String template) {
+		Assertion.check().isNotNull(template);
+		//---
+		final Map<BBKey, Integer> staticKeyIndexes = new LinkedHashMap<>();
+		parts = parse(template, staticKeyIndexes);
+		staticKeys = List.copyOf(staticKeyIndexes.keySet());
+		literalLength = template.length();
+	}
+
+	/**
+	 * Returns the compiled template.
+	 *
+	 * @param template the template
+	 * @return the compiled template
+	 */
+	static BBTemplate of(final String template) {
+		Assertion.check().isNotNull(template);
+		//---
+		final BBTemplate cachedTemplate = TEMPLATES.get(template);
+		if (cachedTemplate != null) {
+			return cachedTemplate;
+		}
+		final BBTemplate compiledTemplate = new BBTemplate(template);
+		if (TEMPLATES.size() >= MAX_CACHED_TEMPLATES) {
+			TEMPLATES.clear();
+		}
+		TEMPLATES.put(template, compiledTemplate);
+		return compiledTemplate;
+	}
+
+	/**
+	 * Renders the template.
+	 *
+	 * @param multiGet returns the values of a list of keys (in the same order, a value may be null)
+	 * @return the rendered message
+	 */
+	String render(final Function<List<BBKey>, List<String>> multiGet) {
+		Assertion.check().isNotNull(multiGet);
+		//---
+		if (parts.size() == 1 && parts.get(0) instanceof final Literal literal) {
+			return literal.text();
+		}
+		final List<String> staticValues = staticKeys.isEmpty()
+				? List.of()
+				: multiGet.apply(staticKeys);
+		final StringBuilder builder = new StringBuilder(literalLength + 16 * staticKeys.size());
+		render(parts, staticValues, multiGet, builder);
+		return builder.toString();
+	}
+
+	private void render(final List<Part> partsToRender, final List<String> staticValues, final Function<List<BBKey>, List<String>> multiGet, final StringBuilder builder) {
+		for (final Part part : partsToRender) {
+			if (part instanceof final Literal literal) {
+				builder.append(literal.text());
+			} else {
+				final KeyPart keyPart = (KeyPart) part;
+				final String value;
+				final String paramName;
+				if (keyPart.isStatic()) {
+					value = staticValues.get(keyPart.staticIndex());
+					paramName = staticKeys.get(keyPart.staticIndex()).key();
+				} else {
+					final StringBuilder keyBuilder = new StringBuilder();
+					render(keyPart.keyParts(), staticValues, multiGet, keyBuilder);
+					paramName = keyBuilder.toString();
+					value = multiGet.apply(List.of(BBKey.of(paramName))).get(0);
+				}
+				if (value == null) {
+					builder.append("not found:").append(paramName);
+				} else {
+					builder.append(value);
+				}
+			}
+		}
+	}
+
+	//------------------------------------
+	//- Parser                            -
+	//------------------------------------
+	private static List<Part> parse(final String template, final Map<BBKey, Integer> staticKeyIndexes) {
+		//each level of nesting is a list of parts, the last one is the current level
+		final List<List<Part>> levels = new ArrayList<>();
+		levels.add(new ArrayList<>());
+		int literalStart = 0;
+		int i = 0;
+		while (i < template.length()) {
+			if (template.startsWith(START_TOKEN, i)) {
+				addLiteral(levels, template, literalStart, i);
+				levels.add(new ArrayList<>());
+				i += START_TOKEN.length();
+				literalStart = i;
+			} else if (template.startsWith(END_TOKEN, i)) {
+				if (levels.size() == 1) {
+					throw new IllegalStateException("An end token '" + END_TOKEN + "+'has been found without a start token " + START_TOKEN);
+				}
+				addLiteral(levels, template, literalStart, i);
+				final List<Part> keyParts = levels.remove(levels.size() - 1);
+				levels.get(levels.size() - 1).add(toKeyPart(keyParts, staticKeyIndexes));
+				i += END_TOKEN.length();
+				literalStart = i;
+			} else {
+				i++;
+			}
+		}
+		if (levels.size() > 1) {
+			throw new IllegalStateException("A start token '" + START_TOKEN + "+'has been found without an end token " + END_TOKEN);
+		}
+		addLiteral(levels, template, literalStart, template.length());
+		final List<Part> rootParts = levels.get(0);
+		return rootParts.isEmpty()
+				? List.of(new Literal(""))
+				: List.copyOf(rootParts);
+	}
+
+	private static void addLiteral(final List<List<Part>> levels, final String template, final int start, final int end) {
+		if (end > start) {
+			levels.get(levels.size() - 1).add(new Literal(template.substring(start, end)));
+		}
+	}
+
+	private static KeyPart toKeyPart(final List<Part> keyParts, final Map<BBKey, Integer> staticKeyIndexes) {
+		if (keyParts.size() == 1 && keyParts.get(0) instanceof final Literal literal) {
+			final BBKey key = BBKey.of(literal.text());
+			final int staticIndex = staticKeyIndexes.computeIfAbsent(key, k -> staticKeyIndexes.size());
+			return new KeyPart(staticIndex, List.of());
+		}
+		return new KeyPart(-1, List.copyOf(keyParts));
+	}
+}
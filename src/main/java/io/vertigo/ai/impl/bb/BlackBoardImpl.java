@@ -3,11 +3,19 @@ package io.vertigo.ai.impl.bb;
 import io.vertigo.ai.bb.BBKey;
 import io.vertigo.ai.bb.BBKeyPattern;
 import io.vertigo.ai.bb.BBKeyTemplate;
+import io.vertigo.ai.bb.BBVersionedValue;
+import io.vertigo.ai.bb.BBWatch;
 import io.vertigo.ai.bb.BlackBoard;
 import io.vertigo.core.lang.Assertion;
 
-import java.util.Optional;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -24,6 +32,16 @@ final class BlackBoardImpl implements BlackBoard {
 		this.rootKey = rootKey;
 	}
 
+	//------------------------------------
+	//--- Batch
+	//------------------------------------
+	@Override
+	public void batch(final Consumer<BlackBoard> unitOfWork) {
+		Assertion.check().isNotNull(unitOfWork);
+		//---
+		blackBoardStorePlugin.batch(store -> unitOfWork.accept(new BlackBoardImpl(store, rootKey)));
+	}
+
 	//------------------------------------
 	//--- Keys
 	//------------------------------------
@@ -32,7 +50,7 @@ final class BlackBoardImpl implements BlackBoard {
 		Assertion.check().isNotNull(key);
 		//---
 		return blackBoardStorePlugin
-				.exists(rootKey.add(key));
+				.exists(resolve(key));
 	}
 
 	@Override
@@ -52,11 +70,33 @@ final class BlackBoardImpl implements BlackBoard {
 				.delete(keyPattern.indent(rootKey.key()));
 	}
 
+	@Override
+	public void expire(final BBKeyPattern keyPattern, final Duration ttl) {
+		Assertion.check()
+				.isNotNull(keyPattern)
+				.isNotNull(ttl)
+				.isTrue(!ttl.isNegative() && !ttl.isZero(), "the ttl must be positive");
+		//---
+		blackBoardStorePlugin
+				.expire(keyPattern.indent(rootKey.key()), ttl);
+	}
+
+	@Override
+	public BBWatch watch(final BBKeyPattern keyPattern, final Consumer<BBKey> listener) {
+		Assertion.check()
+				.isNotNull(keyPattern)
+				.isNotNull(listener);
+		//---
+		final int rootLength = rootKey.key().length();
+		return blackBoardStorePlugin
+				.watch(keyPattern.indent(rootKey.key()), key -> listener.accept(BBKey.of(key.key().substring(rootLength))));
+	}
+
 	@Override
 	public Type getType(final BBKey key) {
 		Assertion.check().isNotNull(key);
 		//---
-		return blackBoardStorePlugin.getType(rootKey.add(key));
+		return blackBoardStorePlugin.getType(resolve(key));
 	}
 
 	//------------------------------------
@@ -64,29 +104,74 @@ final class BlackBoardImpl implements BlackBoard {
 	//------------------------------------
 	@Override
 	public String format(final String msg) {
-		return format(msg, key -> blackBoardStorePlugin.get(rootKey.add(key)));
+		Assertion.check().isNotNull(msg);
+		//---
+		return BBTemplate.of(msg)
+				.render(this::getValues);
 	}
 
 	@Override
 	public BBKey eval(final BBKeyTemplate keyTemplate) {
-		return BBKey.of(format(keyTemplate.keyTemplate(), key -> blackBoardStorePlugin.get(rootKey.add(key))));
+		Assertion.check().isNotNull(keyTemplate);
+		//---
+		return BBKey.of(format(keyTemplate.keyTemplate()));
+	}
+
+	@Override
+	public Map<BBKey, String> getAll(final Collection<BBKey> keys) {
+		Assertion.check().isNotNull(keys);
+		//---
+		final List<BBKey> keyList = List.copyOf(keys);
+		final List<String> values = getValues(keyList);
+		final Map<BBKey, String> result = new LinkedHashMap<>();
+		for (int i = 0; i < keyList.size(); i++) {
+			if (values.get(i) != null) {
+				result.put(keyList.get(i), values.get(i));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void putAll(final Map<BBKey, ?> values) {
+		Assertion.check().isNotNull(values);
+		//--- the types are checked by the store when writing
+		final Map<BBKey, Object> resolvedValues = new LinkedHashMap<>();
+		values.forEach((key, value) -> {
+			Assertion.check()
+					.isNotNull(key)
+					.isTrue(value instanceof String || value instanceof Integer, "the value of the key {0} must be a String or an Integer", key);
+			resolvedValues.put(resolve(key), value);
+		});
+		if (!resolvedValues.isEmpty()) {
+			blackBoardStorePlugin.putAll(resolvedValues);
+		}
+	}
+
+	private List<String> getValues(final List<BBKey> keys) {
+		final List<BBKey> resolvedKeys = new ArrayList<>(keys.size());
+		for (final BBKey key : keys) {
+			resolvedKeys.add(resolve(key));
+		}
+		return blackBoardStorePlugin.getAll(resolvedKeys);
 	}
 
 	//--- KV String
 	@Override
 	public String getString(final BBKey key) {
-		checkKey(key, Type.String);
+		final BBKey resolvedKey = resolve(key);
+		checkType(resolvedKey, Type.String);
 		//---
 		return blackBoardStorePlugin
-				.getString(rootKey.add(key));
+				.getString(resolvedKey);
 	}
 
 	@Override
 	public void putString(final BBKey key, final String value) {
-		checkKey(key, Type.String);
-		//---
+		Assertion.check().isNotNull(key);
+		//--- the type is checked by the store when writing
 		blackBoardStorePlugin
-				.putString(rootKey.add(key), value);
+				.putString(resolve(key), value);
 	}
 
 	@Override
@@ -126,29 +211,55 @@ final class BlackBoardImpl implements BlackBoard {
 				: value.contains(compare);
 	}
 
+	@Override
+	public boolean compareAndSet(final BBKey key, final String expected, final String newValue) {
+		Assertion.check().isNotNull(key);
+		//--- the type is checked by the store when writing
+		return blackBoardStorePlugin
+				.compareAndSet(resolve(key), expected, newValue);
+	}
+
+	@Override
+	public BBVersionedValue getVersioned(final BBKey key) {
+		final BBKey resolvedKey = resolve(key);
+		checkType(resolvedKey, Type.String);
+		//---
+		return blackBoardStorePlugin
+				.getVersioned(resolvedKey);
+	}
+
+	@Override
+	public boolean putIfVersion(final BBKey key, final String value, final long version) {
+		Assertion.check().isNotNull(key);
+		//--- the type is checked by the store when writing
+		return blackBoardStorePlugin
+				.putIfVersion(resolve(key), value, version);
+	}
+
 	//--- KV Integer
 
 	@Override
 	public Integer getInteger(final BBKey key) {
-		checkKey(key, Type.Integer);
+		final BBKey resolvedKey = resolve(key);
+		checkType(resolvedKey, Type.Integer);
 		//---
 		return blackBoardStorePlugin
-				.getInteger(rootKey.add(key));
+				.getInteger(resolvedKey);
 	}
 
 	@Override
 	public void putInteger(final BBKey key, final Integer value) {
-		checkKey(key, Type.Integer);
-		//---
+		Assertion.check().isNotNull(key);
+		//--- the type is checked by the store when writing
 		blackBoardStorePlugin
-				.putInteger(rootKey.add(key), value);
+				.putInteger(resolve(key), value);
 	}
 
 	@Override
 	public void incrBy(final BBKey key, final int value) {
-		checkKey(key, Type.Integer);
-		//---
-		blackBoardStorePlugin.incrBy(rootKey.add(key), value);
+		Assertion.check().isNotNull(key);
+		//--- the type is checked by the store when writing
+		blackBoardStorePlugin.incrBy(resolve(key), value);
 	}
 
 	@Override
@@ -177,9 +288,7 @@ final class BlackBoardImpl implements BlackBoard {
 	}
 
 	private int compareInteger(final BBKey key, final Integer compare) {
-		checkKey(key, Type.Integer);
-		//---
-		final Integer value = getInteger(key);
+		final Integer value = getInteger(key); // getInteger includes type checking
 		return compareInteger(value, compare);
 	}
 
@@ -189,42 +298,85 @@ final class BlackBoardImpl implements BlackBoard {
 	//------------------------------------
 	@Override
 	public long listSize(final BBKey key) {
-		checkKey(key, Type.List);
+		final BBKey resolvedKey = resolve(key);
+		checkType(resolvedKey, Type.List);
 		//---
 		return blackBoardStorePlugin
-				.listSize(rootKey.add(key));
+				.listSize(resolvedKey);
 	}
 
 	@Override
 	public void listPush(final BBKey key, final String value) {
-		checkKey(key, Type.List);
-		//---
+		Assertion.check()
+				.isNotNull(key)
+				.isNotNull(value);
+		//--- the type is checked by the store when writing
 		blackBoardStorePlugin
-				.listPush(rootKey.add(key), value);
+				.listPush(resolve(key), value);
 	}
 
 	@Override
 	public String listPop(final BBKey key) {
-		checkKey(key, Type.List);
+		final BBKey resolvedKey = resolve(key);
+		checkType(resolvedKey, Type.List);
 		//---
 		return blackBoardStorePlugin
-				.listPop(rootKey.add(key));
+				.listPop(resolvedKey);
 	}
 
 	@Override
 	public String listPeek(final BBKey key) {
-		checkKey(rootKey.add(key), Type.List);
+		final BBKey resolvedKey = resolve(key);
+		checkType(resolvedKey, Type.List);
 		//---
 		return blackBoardStorePlugin
-				.listPeek(rootKey.add(key));
+				.listPeek(resolvedKey);
 	}
 
 	@Override
 	public String listGet(final BBKey key, final int idx) {
-		checkKey(rootKey.add(key), Type.List);
+		final BBKey resolvedKey = resolve(key);
+		checkType(resolvedKey, Type.List);
 		//---
 		return blackBoardStorePlugin
-				.listGet(rootKey.add(key), idx);
+				.listGet(resolvedKey, idx);
+	}
+
+	@Override
+	public void listPushLeft(final BBKey key, final String value) {
+		Assertion.check()
+				.isNotNull(key)
+				.isNotNull(value);
+		//--- the type is checked by the store when writing
+		blackBoardStorePlugin
+				.listPushLeft(resolve(key), value);
+	}
+
+	@Override
+	public String listPopLeft(final BBKey key) {
+		final BBKey resolvedKey = resolve(key);
+		checkType(resolvedKey, Type.List);
+		//---
+		return blackBoardStorePlugin
+				.listPopLeft(resolvedKey);
+	}
+
+	@Override
+	public List<String> listRange(final BBKey key, final int from, final int to) {
+		final BBKey resolvedKey = resolve(key);
+		checkType(resolvedKey, Type.List);
+		//---
+		return blackBoardStorePlugin
+				.listRange(resolvedKey, from, to);
+	}
+
+	@Override
+	public void listTrim(final BBKey key, final int from, final int to) {
+		final BBKey resolvedKey = resolve(key);
+		checkType(resolvedKey, Type.List);
+		//---
+		blackBoardStorePlugin
+				.listTrim(resolvedKey, from, to);
 	}
 
 	//------------------------------------
@@ -232,19 +384,30 @@ final class BlackBoardImpl implements BlackBoard {
 	//------------------------------------
 
 	/**
-	 * Checks
-	 * - the key is following the regex
-	 * - the type is ok
+	 * Resolves a key relatively to the root key.
+	 * The concatenated key is validated again (the canonical constructor of the record always runs), by a single scan without regex.
 	 *
-	 * @param key
-	 * @param type
+	 * @param key the key
+	 * @return the key in the store
 	 */
-	private void checkKey(final BBKey key, final Type type) {
+	private BBKey resolve(final BBKey key) {
+		Assertion.check().isNotNull(key);
+		//---
+		return rootKey.add(key);
+	}
+
+	/**
+	 * Checks that the type of an existing key is the expected one.
+	 *
+	 * @param resolvedKey the key in the store
+	 * @param type the expected type
+	 */
+	private void checkType(final BBKey resolvedKey, final Type type) {
 		Assertion.check()
-				.isNotNull(key)
+				.isNotNull(resolvedKey)
 				.isNotNull(type);
 		//---
-		final Type t = getType(key);
+		final Type t = blackBoardStorePlugin.getType(resolvedKey);
 		if (t != null && !type.equals(t)) {
 			throw new IllegalStateException("the type of the key " + t + " is not the one expected " + type);
 		}
@@ -269,25 +432,7 @@ final class BlackBoardImpl implements BlackBoard {
 				.isNotNull(msg)
 				.isNotNull(kv);
 		//---
-		final String START_TOKEN = "{{";
-		final String END_TOKEN = "}}";
-
-		final StringBuilder builder = new StringBuilder(msg);
-		int start = 0;
-		int end;
-		while ((end = builder.indexOf(END_TOKEN, start)) >= 0) {
-			start = builder.lastIndexOf(START_TOKEN, end);
-			if (start < 0) {
-				throw new IllegalStateException("An end token '" + END_TOKEN + "+'has been found without a start token " + START_TOKEN);
-			}
-			final var paramName = builder.substring(start + START_TOKEN.length(), end);
-			final var paramVal = Optional.ofNullable(kv.apply(BBKey.of(paramName)))
-					.orElse("not found:" + paramName);
-			builder.replace(start, end + END_TOKEN.length(), paramVal);
-		}
-		if (builder.indexOf(START_TOKEN) > 0) {
-			throw new IllegalStateException("A start token '" + START_TOKEN + "+'has been found without an end token " + END_TOKEN);
-		}
-		return builder.toString();
+		return BBTemplate.of(msg)
+				.render(keys -> keys.stream().map(kv).toList());
 	}
 }
@@ -6,6 +6,7 @@ import java.util.Map;
 
 import javax.inject.Inject;
 
+import io.vertigo.ai.bb.AsyncBlackBoard;
 import io.vertigo.ai.bb.BBKey;
 import io.vertigo.ai.bb.BlackBoard;
 import io.vertigo.ai.bb.BlackBoardManager;
@@ -39,6 +40,14 @@ public final class BlackBoardManagerImpl implements BlackBoardManager {
 		return new BlackBoardImpl(getPlugin(storeName), rootKey);
 	}
 
+	@Override
+	public AsyncBlackBoard connectAsync(final String storeName, final BBKey rootKey) {
+		Assertion.check()
+				.isNotBlank(storeName, "A storeName is mandatory to connect with a blackboard");
+		//---
+		return new AsyncBlackBoardImpl(getPlugin(storeName).getAsyncStore(), rootKey);
+	}
+
 	//------------------------------------
 	//- Utils                             -
 	//------------------------------------
@@ -0,0 +1,111 @@
+package io.vertigo.ai.impl.bb;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+import io.vertigo.ai.bb.BBKey;
+import io.vertigo.ai.bb.BBKeyPattern;
+import io.vertigo.ai.bb.BlackBoard.Type;
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * The asynchronous api of a store which doesn't block (memory...).
+ * Each operation is directly executed in the calling thread and returns a completed stage.
+ */
+final class BlackBoardStoreAsyncAdapter implements AsyncBlackBoardStore {
+	private final BlackBoardStorePlugin blackBoardStorePlugin;
+
+	BlackBoardStoreAsyncAdapter(final BlackBoardStorePlugin blackBoardStorePlugin) {
+		Assertion.check().isNotNull(blackBoardStorePlugin);
+		//---
+		this.blackBoardStorePlugin = blackBoardStorePlugin;
+	}
+
+	@Override
+	public CompletionStage<Boolean> exists(final BBKey key) {
+		return execute(() -> blackBoardStorePlugin.exists(key));
+	}
+
+	@Override
+	public CompletionStage<Void> delete(final BBKeyPattern keyPattern) {
+		return run(() -> blackBoardStorePlugin.delete(keyPattern));
+	}
+
+	@Override
+	public CompletionStage<Type> getType(final BBKey key) {
+		return execute(() -> blackBoardStorePlugin.getType(key));
+	}
+
+	@Override
+	public CompletionStage<List<String>> getAll(final List<BBKey> keys) {
+		return execute(() -> blackBoardStorePlugin.getAll(keys));
+	}
+
+	@Override
+	public CompletionStage<Void> putAll(final Map<BBKey, ?> values) {
+		return run(() -> blackBoardStorePlugin.putAll(values));
+	}
+
+	@Override
+	public CompletionStage<String> getString(final BBKey key) {
+		return execute(() -> blackBoardStorePlugin.getString(key));
+	}
+
+	@Override
+	public CompletionStage<Void> putString(final BBKey key, final String value) {
+		return run(() -> blackBoardStorePlugin.putString(key, value));
+	}
+
+	@Override
+	public CompletionStage<Integer> getInteger(final BBKey key) {
+		return execute(() -> blackBoardStorePlugin.getInteger(key));
+	}
+
+	@Override
+	public CompletionStage<Void> putInteger(final BBKey key, final Integer value) {
+		return run(() -> blackBoardStorePlugin.putInteger(key, value));
+	}
+
+	@Override
+	public CompletionStage<Void> incrBy(final BBKey key, final int value) {
+		return run(() -> blackBoardStorePlugin.incrBy(key, value));
+	}
+
+	@Override
+	public CompletionStage<Long> listSize(final BBKey key) {
+		return execute(() -> blackBoardStorePlugin.listSize(key));
+	}
+
+	@Override
+	public CompletionStage<Void> listPush(final BBKey key, final String value) {
+		return run(() -> blackBoardStorePlugin.listPush(key, value));
+	}
+
+	@Override
+	public CompletionStage<String> listPop(final BBKey key) {
+		return execute(() -> blackBoardStorePlugin.listPop(key));
+	}
+
+	@Override
+	public CompletionStage<List<String>> listRange(final BBKey key, final int from, final int to) {
+		return execute(() -> blackBoardStorePlugin.listRange(key, from, to));
+	}
+
+	private static <R> CompletionStage<R> execute(final Supplier<R> operation) {
+		try {
+			return CompletableFuture.completedFuture(operation.get());
+		} catch (final RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	private static CompletionStage<Void> run(final Runnable operation) {
+		return execute(() -> {
+			operation.run();
+			return null;
+		});
+	}
+}
@@ -1,14 +1,52 @@
 package io.vertigo.ai.impl.bb;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import io.vertigo.ai.bb.BBKey;
 import io.vertigo.ai.bb.BBKeyPattern;
+import io.vertigo.ai.bb.BBVersionedValue;
+import io.vertigo.ai.bb.BBWatch;
 import io.vertigo.ai.bb.BlackBoard.Type;
 import io.vertigo.core.node.component.Plugin;
 
+/**
+ * A store of blackboards.
+ *
+ * The writes check the type of an existing key atomically,
+ * an IllegalStateException is thrown when the key already exists with another type.
+ */
 public interface BlackBoardStorePlugin extends Plugin {
 
+	//------------------------------------
+	//--- Batch
+	//------------------------------------
+	/**
+	 * Executes a unit of work on this store.
+	 * A remote store may defer the writes and send them in a single round trip.
+	 * By default the unit of work is directly executed on the store.
+	 *
+	 * @param unitOfWork the unit of work using the provided store
+	 */
+	default void batch(final Consumer<BlackBoardStorePlugin> unitOfWork) {
+		unitOfWork.accept(this);
+	}
+
+	/**
+	 * Returns the asynchronous api of this store.
+	 * A remote store should send the operations without blocking the calling thread.
+	 * By default each operation is directly executed on the store and returns a completed stage.
+	 *
+	 * @return the asynchronous store
+	 */
+	default AsyncBlackBoardStore getAsyncStore() {
+		return new BlackBoardStoreAsyncAdapter(this);
+	}
+
 	//------------------------------------
 	//--- Keys
 	//------------------------------------
@@ -45,6 +83,25 @@ public interface BlackBoardStorePlugin extends Plugin {
 	 */
 	Type getType(final BBKey key);
 
+	/**
+	 * Sets a ttl on all the existing keys matching the pattern.
+	 * A key keeps its ttl when it is written again, until it is deleted or expires.
+	 *
+	 * @param keyPattern the pattern
+	 * @param ttl the time to live
+	 */
+	void expire(final BBKeyPattern keyPattern, final Duration ttl);
+
+	/**
+	 * Watches the changes of the keys matching the pattern : the writes and the deletions (including the expirations).
+	 * The listener is called by a thread of the store : it must be quick and must not block.
+	 *
+	 * @param keyPattern the pattern
+	 * @param listener the listener receiving the changed keys
+	 * @return the watch, to close when the changes are not needed anymore
+	 */
+	BBWatch watch(final BBKeyPattern keyPattern, final Consumer<BBKey> listener);
+
 	//------------------------------------
 	//--- KV
 	//------------------------------------
@@ -56,6 +113,37 @@ public interface BlackBoardStorePlugin extends Plugin {
 	 */
 	String get(final BBKey key);
 
+	/**
+	 * Returns the values of a list of keys, whatever their types.
+	 * A store may read all the keys in a single operation.
+	 *
+	 * @param keys the keys
+	 * @return the values in the same order as the keys (a value may be null)
+	 */
+	default List<String> getAll(final List<BBKey> keys) {
+		final List<String> values = new ArrayList<>(keys.size());
+		for (final BBKey key : keys) {
+			values.add(get(key));
+		}
+		return values;
+	}
+
+	/**
+	 * Writes many values (strings or integers), whose types are given by the values.
+	 * A store may write all the keys in a single operation.
+	 *
+	 * @param values the values (String or Integer) mapped with their keys
+	 */
+	default void putAll(final Map<BBKey, ?> values) {
+		values.forEach((key, value) -> {
+			if (value instanceof final Integer integer) {
+				putInteger(key, integer);
+			} else {
+				putString(key, (String) value);
+			}
+		});
+	}
+
 	//--- KV String
 	/**
 	 * Returns the value or null if the key does not exist
@@ -67,6 +155,28 @@ public interface BlackBoardStorePlugin extends Plugin {
 
 	void putString(final BBKey key, final String value);
 
+	/**
+	 * Replaces a string value if the current value is the expected one, in a single atomic operation.
+	 *
+	 * @param key the key
+	 * @param expected the expected value (null if the key must not exist)
+	 * @param newValue the new value
+	 * @return true if the value has been replaced
+	 */
+	boolean compareAndSet(final BBKey key, final String expected, final String newValue);
+
+	BBVersionedValue getVersioned(final BBKey key);
+
+	/**
+	 * Writes a string value if the version of the key is the expected one, in a single atomic operation.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @param version the expected version (0 if the key must not exist)
+	 * @return true if the value has been written
+	 */
+	boolean putIfVersion(final BBKey key, final String value, final long version);
+
 	//--- KV Integer
 	/**
 	 * Returns the value or null if the key does not exist
@@ -131,6 +241,43 @@ public interface BlackBoardStorePlugin extends Plugin {
 	 */
 	String listGet(final BBKey key, final int idx);
 
+	/**
+	 * Pushes a value at the bottom of the list (index 0)
+	 *
+	 * @param key the key
+	 * @param value the value
+	 */
+	void listPushLeft(final BBKey key, final String value);
+
+	/**
+	 * Removes and returns the value at the bottom of the list (index 0)
+	 *
+	 * @param key the key
+	 * @return the value or null if the list is empty
+	 */
+	String listPopLeft(final BBKey key);
+
+	/**
+	 * Returns the values between two indexes of the list, both included.
+	 * A negative index starts from the top of the list : -1 is the top, so listRange(key, 0, -1) returns the whole list.
+	 *
+	 * @param key the key
+	 * @param from the first index
+	 * @param to the last index
+	 * @return the values, from the bottom to the top
+	 */
+	List<String> listRange(final BBKey key, final int from, final int to);
+
+	/**
+	 * Keeps only the values between two indexes of the list, both included (same indexes as listRange).
+	 * listTrim(key, -100, -1) keeps the last 100 values of a capped history.
+	 *
+	 * @param key the key
+	 * @param from the first index
+	 * @param to the last index
+	 */
+	void listTrim(final BBKey key, final int from, final int to);
+
 	//------------------------------------
 	//- Plugin                             -
 	//------------------------------------
@@ -1,5 +1,11 @@
 package io.vertigo.ai.impl.bt;
 
+import java.util.concurrent.CompletionStage;
+
+import io.vertigo.ai.bb.BBKey;
+import io.vertigo.ai.bb.BBKeyPattern;
+import io.vertigo.ai.bb.BlackBoard;
+import io.vertigo.ai.bt.BTContext;
 import io.vertigo.ai.bt.BTNode;
 import io.vertigo.ai.bt.BTStatus;
 import io.vertigo.ai.bt.BehaviorTreeManager;
@@ -15,4 +21,52 @@ public class BehaviorTreeManagerImpl implements BehaviorTreeManager {
 		return rootNode.eval();
 	}
 
+	@Override
+	public CompletionStage<BTStatus> runAsync(final BTNode rootNode) {
+		Assertion.check()
+				.isNotNull(rootNode);
+		//---
+		return rootNode.evalAsync();
+	}
+
+	@Override
+	public CompletionStage<BTStatus> runAsync(final BTNode rootNode, final BTContext context) {
+		Assertion.check()
+				.isNotNull(rootNode)
+				.isNotNull(context);
+		//---
+		return rootNode.evalAsync(context);
+	}
+
+	@Override
+	public BTStatus run(final BTNode rootNode, final BTContext context) {
+		Assertion.check()
+				.isNotNull(rootNode)
+				.isNotNull(context);
+		//---
+		return rootNode.eval(context);
+	}
+
+	@Override
+	public BTStatus run(final BTNode rootNode, final BlackBoard blackBoard, final BBKey stateKey) {
+		Assertion.check()
+				.isNotNull(rootNode)
+				.isNotNull(blackBoard)
+				.isNotNull(stateKey);
+		//---
+		final String state = blackBoard.getString(stateKey);
+		final BTContext context = state == null
+				? new BTContext()
+				: BTContext.of(state);
+		final BTStatus status = rootNode.eval(context);
+		if (context.isEmpty()) {
+			if (state != null) {
+				blackBoard.delete(BBKeyPattern.of(stateKey.key()));
+			}
+		} else {
+			blackBoard.putString(stateKey, context.getState());
+		}
+		return status;
+	}
+
 }
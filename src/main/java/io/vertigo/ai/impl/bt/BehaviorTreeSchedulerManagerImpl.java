@@ -0,0 +1,240 @@
+package io.vertigo.ai.impl.bt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.inject.Inject;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertigo.ai.bt.BTAgent;
+import io.vertigo.ai.bt.BTContext;
+import io.vertigo.ai.bt.BTNode;
+import io.vertigo.ai.bt.BTSchedulerStats;
+import io.vertigo.ai.bt.BTStatus;
+import io.vertigo.ai.bt.BehaviorTreeSchedulerManager;
+import io.vertigo.core.lang.Assertion;
+import io.vertigo.core.node.component.Activeable;
+import io.vertigo.core.param.ParamValue;
+
+/**
+ * Implementation of the BehaviorTreeSchedulerManager.
+ *
+ * The agents wait in a queue ordered by their next tick.
+ * A single thread polls the agents due every resolutionMillis (without visiting the others) and submits their ticks to a ForkJoinPool of parallelism threads.
+ * When maxPendingTicks ticks are waiting for a thread, the ticks due are deferred to the next scan.
+ *
+ * The BT are evaluated asynchronously : the tasks waiting for I/O don't block the threads of the pool.
+ */
+public final class BehaviorTreeSchedulerManagerImpl implements BehaviorTreeSchedulerManager, Activeable {
+	private static final Logger LOGGER = LogManager.getLogger(BehaviorTreeSchedulerManagerImpl.class);
+
+	private final class Agent implements BTAgent {
+		private final BTNode rootNode;
+		private final long periodNanos;
+		//only read and written by the tick of the agent, the ticks never overlap
+		private BTContext context = new BTContext();
+		//only read and written by the scanning thread, while the agent is out of the queue
+		private long nextTickNanos;
+		private volatile boolean closed;
+		private final AtomicBoolean changed = new AtomicBoolean(true);
+		private final AtomicBoolean ticking = new AtomicBoolean();
+		private volatile BTStatus lastStatus;
+
+		private Agent(final BTNode rootNode, final long periodNanos, final long nextTickNanos) {
+			this.rootNode = rootNode;
+			this.periodNanos = periodNanos;
+			this.nextTickNanos = nextTickNanos;
+		}
+
+		@Override
+		public void changed() {
+			changed.set(true);
+		}
+
+		@Override
+		public BTStatus getLastStatus() {
+			return lastStatus;
+		}
+
+		@Override
+		public void close() {
+			//the agent is removed from the queue at its next tick
+			closed = true;
+		}
+
+		private boolean isPending() {
+			return changed.get() || lastStatus == BTStatus.Running;
+		}
+	}
+
+	private final int resolutionMillis;
+	private final int maxPendingTicks;
+	private final ForkJoinPool pool;
+	private final ScheduledExecutorService scanner;
+	private final PriorityBlockingQueue<Agent> agents = new PriorityBlockingQueue<>(64,
+			(agent1, agent2) -> Long.signum(agent1.nextTickNanos - agent2.nextTickNanos));
+	private final AtomicInteger pendingTicks = new AtomicInteger();
+	//--- stats
+	private final LongAdder ticks = new LongAdder();
+	private final LongAdder skippedTicks = new LongAdder();
+	private final LongAdder overrunTicks = new LongAdder();
+	private final LongAdder deferredTicks = new LongAdder();
+	private final LongAdder failedTicks = new LongAdder();
+	private final LongAdder totalTickNanos = new LongAdder();
+	private final AtomicLong maxTickNanos = new AtomicLong();
+	private volatile long startNanos;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param parallelismOpt the number of threads ticking the agents (the number of cores by default)
+	 * @param resolutionMillisOpt the period of the scan of the agents, the smallest period of an agent (10ms by default)
+	 * @param maxPendingTicksOpt the max number of ticks waiting for a thread (10 000 by default)
+	 */
+	@Inject
+	public BehaviorTreeSchedulerManagerImpl(
+			final @ParamValue("parallelism") Optional<Integer> parallelismOpt,
+			final @ParamValue("resolutionMillis") Optional<Integer> resolutionMillisOpt,
+			final @ParamValue("maxPendingTicks") Optional<Integer> maxPendingTicksOpt) {
+		Assertion.check()
+				.isNotNull(parallelismOpt)
+				.isNotNull(resolutionMillisOpt)
+				.isNotNull(maxPendingTicksOpt);
+		//---
+		final int parallelism = parallelismOpt.orElse(Runtime.getRuntime().availableProcessors());
+		resolutionMillis = resolutionMillisOpt.orElse(10);
+		maxPendingTicks = maxPendingTicksOpt.orElse(10_000);
+		Assertion.check()
+				.isTrue(parallelism > 0, "parallelism must be > 0")
+				.isTrue(resolutionMillis > 0, "resolutionMillis must be > 0")
+				.isTrue(maxPendingTicks > 0, "maxPendingTicks must be > 0");
+		//---
+		pool = new ForkJoinPool(parallelism);
+		scanner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "bt-scheduler");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Override
+	public void start() {
+		startNanos = System.nanoTime();
+		scanner.scheduleAtFixedRate(this::scan, resolutionMillis, resolutionMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void stop() {
+		scanner.shutdownNow();
+		pool.shutdownNow();
+		agents.clear();
+	}
+
+	@Override
+	public BTAgent register(final BTNode rootNode, final long periodMillis) {
+		Assertion.check()
+				.isNotNull(rootNode)
+				.isTrue(periodMillis > 0, "periodMillis must be > 0");
+		//---
+		final Agent agent = new Agent(rootNode, TimeUnit.MILLISECONDS.toNanos(periodMillis), System.nanoTime());
+		agents.add(agent);
+		return agent;
+	}
+
+	@Override
+	public BTSchedulerStats getStats() {
+		final long tickCount = ticks.sum() + failedTicks.sum();
+		final long elapsedNanos = System.nanoTime() - startNanos;
+		return new BTSchedulerStats(
+				ticks.sum(),
+				skippedTicks.sum(),
+				overrunTicks.sum(),
+				deferredTicks.sum(),
+				failedTicks.sum(),
+				tickCount == 0 ? 0 : totalTickNanos.sum() / tickCount,
+				maxTickNanos.get(),
+				elapsedNanos <= 0 ? 0 : ticks.sum() * 1e9 / elapsedNanos);
+	}
+
+	private void scan() {
+		final long now = System.nanoTime();
+		final List<Agent> dueAgents = new ArrayList<>();
+		for (Agent agent = agents.poll(); agent != null; agent = agents.poll()) {
+			if (now - agent.nextTickNanos < 0) {
+				//the next agents are not due either
+				agents.add(agent);
+				break;
+			}
+			dueAgents.add(agent);
+		}
+		for (final Agent agent : dueAgents) {
+			if (agent.closed) {
+				continue;
+			}
+			if (agent.ticking.get()) {
+				overrunTicks.increment();
+			} else if (!agent.isPending()) {
+				skippedTicks.increment();
+			} else if (pendingTicks.get() >= maxPendingTicks) {
+				//back-pressure : the tick stays due for the next scan
+				deferredTicks.increment();
+				agents.add(agent);
+				continue;
+			} else {
+				agent.ticking.set(true);
+				pendingTicks.incrementAndGet();
+				pool.execute(() -> tick(agent));
+			}
+			//a fixed rate, without burst to catch up the late ticks
+			agent.nextTickNanos += agent.periodNanos;
+			if (now - agent.nextTickNanos >= 0) {
+				agent.nextTickNanos = now + agent.periodNanos;
+			}
+			agents.add(agent);
+		}
+	}
+
+	private void tick(final Agent agent) {
+		pendingTicks.decrementAndGet();
+		final long start = System.nanoTime();
+		//the changes made during the tick are kept for the next one
+		agent.changed.set(false);
+		CompletionStage<BTStatus> status;
+		try {
+			status = agent.rootNode.evalAsync(agent.context);
+		} catch (final RuntimeException e) {
+			status = CompletableFuture.failedFuture(e);
+		}
+		//the thread is released while the tasks wait for I/O, the tick is over when the BT is done
+		status.whenComplete((lastStatus, error) -> {
+			if (error == null) {
+				agent.lastStatus = lastStatus;
+				ticks.increment();
+			} else {
+				failedTicks.increment();
+				//the BT is restarted from its root
+				agent.context = new BTContext();
+				LOGGER.error("the tick of an agent has failed", error instanceof CompletionException ? error.getCause() : error);
+			}
+			final long duration = System.nanoTime() - start;
+			totalTickNanos.add(duration);
+			maxTickNanos.accumulateAndGet(duration, Math::max);
+			agent.ticking.set(false);
+		});
+	}
+}
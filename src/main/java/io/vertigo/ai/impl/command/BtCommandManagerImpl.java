@@ -60,6 +60,19 @@ public class BtCommandManagerImpl implements BtCommandManager, SimpleDefinitionP
 				BtCommandParserDefinition.statelessBasicCommand("running", c -> BTNodes.running()),
 				BtCommandParserDefinition.statelessCompositeCommand("sequence", (c, l) -> BTNodes.sequence(l)),
 				BtCommandParserDefinition.statelessCompositeCommand("selector", (c, l) -> BTNodes.selector(l)),
+				BtCommandParserDefinition.statelessCompositeCommand("parallel", (c, l) -> {
+					// all (by default), any or the number of nodes that must succeed
+					final var policy = c.getOptStringParam(0).orElse("all");
+					if ("all".equals(policy)) {
+						return BTNodes.parallel(l);
+					} else if ("any".equals(policy)) {
+						return BTNodes.parallelAny(l);
+					}
+					final int successes = c.getIntParam(0);
+					Assertion.check()
+							.isTrue(successes >= 0 && successes <= l.size(), "parallel must succeed with 0 to {0} nodes, not {1}", l.size(), successes);
+					return BTNodes.parallel(successes, l);
+				}),
 				BtCommandParserDefinition.statelessCompositeCommand("try", (c, l) -> BTNodes.doTry(c.getIntParam(0), l)),
 				BtCommandParserDefinition.statelessCompositeCommand("loop", (c, l) -> {
 					final var optionalInt = c.getOptIntParam(0);
@@ -0,0 +1,279 @@
+package io.vertigo.ai.plugins.bb.file;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * An append-only log of the writes done on a blackboard.
+ *
+ * A record is : op (byte), key (string), value (nullable string), CRC32 of the previous fields (int).
+ * A string is written as its length in bytes (-1 for null) followed by its UTF-8 bytes.
+ *
+ * The log is replayed at startup.
+ * The first invalid record ends the log and is truncated : a wrong CRC, a length beyond the end of the file or an empty key
+ * (a record which has not been entirely written, a torn or zero-filled tail after a crash).
+ * The log is compacted by rewriting the current state in a new file, which replaces the log atomically.
+ *
+ * Each record is flushed to the file system, the sync policy tells when the file is forced on the disk :
+ * after each record (always), every second by the plugin (everySecond) or when the system decides (never).
+ *
+ * This object is not thread safe, the writes are serialized by the plugin. Only sync can be called concurrently.
+ */
+final class FileBlackBoardLog implements AutoCloseable {
+	enum Op {
+		//new ops are added at the end : the ordinal is written in the log
+		PUT_STRING, PUT_INTEGER, INCR_BY, LIST_PUSH, LIST_POP, DELETE, EXPIRE, LIST_PUSH_LEFT, LIST_POP_LEFT, LIST_TRIM
+	}
+
+	enum SyncPolicy {
+		always, everySecond, never
+	}
+
+	@FunctionalInterface
+	interface RecordHandler {
+		void accept(Op op, String key, String value);
+	}
+
+	private static final Op[] OPS = Op.values();
+
+	private final Path path;
+	private final SyncPolicy syncPolicy;
+	private DataOutputStream out;
+	//the channel of out, forced by sync
+	private volatile FileChannel channel;
+	//number of records in the log
+	private long records;
+
+	FileBlackBoardLog(final Path path, final SyncPolicy syncPolicy) {
+		Assertion.check()
+				.isNotNull(path)
+				.isNotNull(syncPolicy);
+		//---
+		this.path = path;
+		this.syncPolicy = syncPolicy;
+	}
+
+	/**
+	 * Replays all the records of the log then opens the log to append the next records.
+	 *
+	 * @param handler the handler of the records
+	 * @throws IOException if the log can't be read
+	 */
+	void open(final RecordHandler handler) throws IOException {
+		Assertion.check()
+				.isNotNull(handler)
+				.isNull(out, "the log is already open");
+		//---
+		if (path.getParent() != null) {
+			Files.createDirectories(path.getParent());
+		}
+		long validLength = 0;
+		records = 0;
+		if (Files.exists(path)) {
+			final long fileLength = Files.size(path);
+			final CRC32 crc = new CRC32();
+			try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 64 * 1024))) {
+				while (true) {
+					final int opIndex = in.read();
+					if (opIndex < 0 || opIndex >= OPS.length) {
+						break; // end of the log (or garbage after a crash)
+					}
+					crc.reset();
+					crc.update(opIndex);
+					final long remaining = fileLength - validLength - 1;
+					final byte[] key = readBytes(in, remaining, crc);
+					if (key == null || key.length == 0) {
+						break;
+					}
+					final byte[] value = readBytes(in, remaining - 4 - key.length, crc);
+					if (in.readInt() != (int) crc.getValue()) {
+						break;
+					}
+					handler.accept(OPS[opIndex], toString(key), toString(value));
+					validLength += 1 + 4 + key.length + 4 + (value == null ? 0 : value.length) + 4;
+					records++;
+				}
+			} catch (final EOFException e) {
+				//the last record is incomplete
+			}
+			try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+				if (channel.size() > validLength) {
+					channel.truncate(validLength);
+				}
+			}
+		}
+		openOutput();
+	}
+
+	private void openOutput() throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		out = newOutput(Channels.newOutputStream(channel));
+	}
+
+	/**
+	 * Appends a record.
+	 * The record is flushed to the file system before returning, and forced on the disk with the always policy.
+	 * A record which fails to be written is removed from the log.
+	 */
+	void append(final Op op, final String key, final String value) throws IOException {
+		Assertion.check().isNotNull(out, "the log is not open");
+		//---
+		final long length = channel.size();
+		try {
+			write(out, op, key, value);
+			out.flush();
+			if (syncPolicy == SyncPolicy.always) {
+				channel.force(false);
+			}
+		} catch (final IOException e) {
+			//the bytes of the record still buffered are dropped with the buffer
+			try {
+				channel.truncate(length);
+				out = newOutput(Channels.newOutputStream(channel));
+			} catch (final IOException truncateException) {
+				e.addSuppressed(truncateException);
+			}
+			throw e;
+		}
+		records++;
+	}
+
+	/**
+	 * Forces the records already appended on the disk.
+	 * Can be called by another thread than the writer.
+	 */
+	void sync() throws IOException {
+		final FileChannel currentChannel = channel;
+		if (currentChannel == null) {
+			return;
+		}
+		try {
+			currentChannel.force(false);
+		} catch (final ClosedChannelException e) {
+			//the log has been closed or compacted, the new log is already forced
+		}
+	}
+
+	/**
+	 * Replaces the log by a new log containing only the records provided by the snapshot.
+	 *
+	 * @param snapshot writes the records describing the current state
+	 */
+	void compact(final Consumer<RecordHandler> snapshot) throws IOException {
+		Assertion.check()
+				.isNotNull(snapshot)
+				.isNotNull(out, "the log is not open");
+		//---
+		final Path compactedPath = path.resolveSibling(path.getFileName() + ".compact");
+		final long[] compactedRecords = { 0 };
+		try (final FileChannel channel = FileChannel.open(compactedPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+				final DataOutputStream compactedOut = newOutput(Channels.newOutputStream(channel))) {
+			snapshot.accept((op, key, value) -> {
+				try {
+					write(compactedOut, op, key, value);
+				} catch (final IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				compactedRecords[0]++;
+			});
+			compactedOut.flush();
+			channel.force(true);
+		} catch (final UncheckedIOException e) {
+			throw e.getCause();
+		}
+		out.close();
+		Files.move(compactedPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		openOutput();
+		records = compactedRecords[0];
+	}
+
+	long getRecords() {
+		return records;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (out != null) {
+			out.flush();
+			if (syncPolicy != SyncPolicy.never) {
+				channel.force(false);
+			}
+			out.close();
+			out = null;
+			channel = null;
+		}
+	}
+
+	private static DataOutputStream newOutput(final OutputStream outputStream) {
+		return new DataOutputStream(new BufferedOutputStream(outputStream, 64 * 1024));
+	}
+
+	private static void write(final DataOutputStream output, final Op op, final String key, final String value) throws IOException {
+		final CRC32 crc = new CRC32();
+		output.write(op.ordinal());
+		crc.update(op.ordinal());
+		writeBytes(output, key.getBytes(StandardCharsets.UTF_8), crc);
+		writeBytes(output, value == null ? null : value.getBytes(StandardCharsets.UTF_8), crc);
+		output.writeInt((int) crc.getValue());
+	}
+
+	private static void writeBytes(final DataOutputStream output, final byte[] bytes, final CRC32 crc) throws IOException {
+		final int length = bytes == null ? -1 : bytes.length;
+		output.writeInt(length);
+		updateInt(crc, length);
+		if (bytes != null) {
+			output.write(bytes);
+			crc.update(bytes);
+		}
+	}
+
+	/**
+	 * Reads a string written by writeBytes.
+	 * A length beyond the end of the file (garbage after a crash) ends the log, nothing is allocated.
+	 *
+	 * @param remaining the number of bytes left in the file, including the length
+	 */
+	private static byte[] readBytes(final DataInputStream input, final long remaining, final CRC32 crc) throws IOException {
+		final int length = input.readInt();
+		updateInt(crc, length);
+		if (length == -1) {
+			return null;
+		}
+		if (length < -1 || length > remaining - 4) {
+			throw new EOFException("invalid length : " + length);
+		}
+		final byte[] bytes = new byte[length];
+		input.readFully(bytes);
+		crc.update(bytes);
+		return bytes;
+	}
+
+	private static void updateInt(final CRC32 crc, final int value) {
+		crc.update(value >>> 24);
+		crc.update(value >>> 16);
+		crc.update(value >>> 8);
+		crc.update(value);
+	}
+
+	private static String toString(final byte[] bytes) {
+		return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,464 @@
+package io.vertigo.ai.plugins.bb.file;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.inject.Inject;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertigo.ai.bb.BBKey;
+import io.vertigo.ai.bb.BBKeyPattern;
+import io.vertigo.ai.bb.BBVersionedValue;
+import io.vertigo.ai.bb.BBWatch;
+import io.vertigo.ai.bb.BlackBoard.Type;
+import io.vertigo.ai.impl.bb.BlackBoardStorePlugin;
+import io.vertigo.ai.plugins.bb.file.FileBlackBoardLog.Op;
+import io.vertigo.ai.plugins.bb.file.FileBlackBoardLog.RecordHandler;
+import io.vertigo.ai.plugins.bb.file.FileBlackBoardLog.SyncPolicy;
+import io.vertigo.ai.plugins.bb.memory.MemoryBlackBoardStorePlugin;
+import io.vertigo.core.analytics.metric.Metric;
+import io.vertigo.core.analytics.metric.Metrics;
+import io.vertigo.core.lang.Assertion;
+import io.vertigo.core.lang.WrappedException;
+import io.vertigo.core.node.component.Activeable;
+import io.vertigo.core.param.ParamValue;
+
+/**
+ * Durable implementation of a BlackBoard store on a single node.
+ *
+ * All the keys are kept in memory, so the reads are as fast as the memory store.
+ * Each write is appended to a log file (see FileBlackBoardLog) then applied in memory : a write which can't be logged is not done.
+ * The types are checked before, so a write rejected by the memory store is not logged.
+ * At startup the log is replayed to rebuild the memory state.
+ *
+ * The param fsync tells when the log is forced on the disk : after each write (always), every second (everySecond by default) or never.
+ * With everySecond, a crash of the system may lose the writes of the last second.
+ *
+ * The log is compacted when it contains more than compactionThreshold records and twice the records of the last compaction :
+ * the current state is written in a new log which replaces the old one.
+ *
+ * The writes are serialized so that the memory keeps the order of the writes in the log.
+ * The deadlines of the keys are logged, an expired key is evicted by the memory store and again when the log is replayed.
+ */
+public final class FileBlackBoardStorePlugin implements BlackBoardStorePlugin, Activeable {
+	private static final Logger LOGGER = LogManager.getLogger(FileBlackBoardStorePlugin.class);
+	private static final int DEFAULT_COMPACTION_THRESHOLD = 100_000;
+
+	private final MemoryBlackBoardStorePlugin memoryStore;
+	private final FileBlackBoardLog log;
+	private final int compactionThreshold;
+	//forces the log every second with the everySecond policy, null otherwise
+	private final ScheduledExecutorService syncExecutor;
+	//guards the log and orders the writes
+	private final Object writeLock = new Object();
+	//number of records written by the last compaction
+	private long compactedRecords;
+
+	/**
+	 * Constructor.
+	 * @param storeNameOpt the name of the store (main by default)
+	 * @param filePath the path of the log file
+	 * @param compactionThresholdOpt the min number of records in the log before a compaction (100 000 by default)
+	 * @param fsyncOpt when the log is forced on the disk : always, everySecond or never (everySecond by default)
+	 */
+	@Inject
+	public FileBlackBoardStorePlugin(
+			final @ParamValue("storeName") Optional<String> storeNameOpt,
+			final @ParamValue("filePath") String filePath,
+			final @ParamValue("compactionThreshold") Optional<Integer> compactionThresholdOpt,
+			final @ParamValue("fsync") Optional<String> fsyncOpt) {
+		Assertion.check()
+				.isNotNull(storeNameOpt)
+				.isNotBlank(filePath)
+				.isNotNull(compactionThresholdOpt)
+				.isNotNull(fsyncOpt);
+		// ---
+		final SyncPolicy syncPolicy = SyncPolicy.valueOf(fsyncOpt.orElse(SyncPolicy.everySecond.name()));
+		memoryStore = MemoryBlackBoardStorePlugin.builder()
+				.withStoreName(storeNameOpt)
+				.build();
+		log = new FileBlackBoardLog(Path.of(filePath), syncPolicy);
+		compactionThreshold = compactionThresholdOpt.orElse(DEFAULT_COMPACTION_THRESHOLD);
+		syncExecutor = syncPolicy == SyncPolicy.everySecond
+				? Executors.newSingleThreadScheduledExecutor(runnable -> {
+					final Thread thread = new Thread(runnable, "bb-file-sync");
+					thread.setDaemon(true);
+					return thread;
+				})
+				: null;
+	}
+
+	@Override
+	public void start() {
+		synchronized (writeLock) {
+			try {
+				log.open(this::apply);
+				if (log.getRecords() >= compactionThreshold) {
+					compact();
+				}
+			} catch (final IOException e) {
+				throw WrappedException.wrap(e);
+			}
+		}
+		if (syncExecutor != null) {
+			syncExecutor.scheduleAtFixedRate(this::sync, 1, 1, TimeUnit.SECONDS);
+		}
+	}
+
+	@Override
+	public void stop() {
+		if (syncExecutor != null) {
+			syncExecutor.shutdownNow();
+		}
+		synchronized (writeLock) {
+			try {
+				memoryStore.stop();
+				log.close();
+			} catch (final IOException e) {
+				throw WrappedException.wrap(e);
+			}
+		}
+	}
+
+	//------------------------------------
+	//--- Keys
+	//------------------------------------
+	@Override
+	public boolean exists(final BBKey key) {
+		return memoryStore.exists(key);
+	}
+
+	@Override
+	public Set<BBKey> keys(final BBKeyPattern keyPattern) {
+		return memoryStore.keys(keyPattern);
+	}
+
+	@Override
+	public void delete(final BBKeyPattern keyPattern) {
+		write(Op.DELETE, keyPattern.keyPattern(), null, () -> {
+			memoryStore.delete(keyPattern);
+			return null;
+		});
+	}
+
+	@Override
+	public void expire(final BBKeyPattern keyPattern, final Duration ttl) {
+		final Instant deadline = Instant.now().plus(ttl);
+		write(Op.EXPIRE, keyPattern.keyPattern(), String.valueOf(deadline.toEpochMilli()), () -> {
+			memoryStore.expireAt(keyPattern, deadline);
+			return null;
+		});
+	}
+
+	@Override
+	public BBWatch watch(final BBKeyPattern keyPattern, final Consumer<BBKey> listener) {
+		return memoryStore.watch(keyPattern, listener);
+	}
+
+	/**
+	 * @return the metrics of the keys
+	 */
+	@Metrics
+	public List<Metric> getKeyMetrics() {
+		return memoryStore.getKeyMetrics();
+	}
+
+	@Override
+	public Type getType(final BBKey key) {
+		return memoryStore.getType(key);
+	}
+
+	//------------------------------------
+	//--- KV
+	//------------------------------------
+	@Override
+	public String get(final BBKey key) {
+		return memoryStore.get(key);
+	}
+
+	@Override
+	public List<String> getAll(final List<BBKey> keys) {
+		return memoryStore.getAll(keys);
+	}
+
+	@Override
+	public void putAll(final Map<BBKey, ?> values) {
+		synchronized (writeLock) {
+			//all the types are checked before any write
+			values.forEach((key, value) -> checkType(key, value instanceof Integer ? Type.Integer : Type.String));
+			values.forEach((key, value) -> append(value instanceof Integer ? Op.PUT_INTEGER : Op.PUT_STRING, key.key(), value == null ? null : String.valueOf(value)));
+			memoryStore.putAll(values);
+			compactIfNeeded();
+		}
+	}
+
+	@Override
+	public String getString(final BBKey key) {
+		return memoryStore.getString(key);
+	}
+
+	@Override
+	public void putString(final BBKey key, final String value) {
+		write(Op.PUT_STRING, key, Type.String, value, () -> {
+			memoryStore.putString(key, value);
+			return null;
+		});
+	}
+
+	@Override
+	public boolean compareAndSet(final BBKey key, final String expected, final String newValue) {
+		synchronized (writeLock) {
+			checkType(key, Type.String);
+			//the writes are serialized : the value read is still the current one
+			if (!Objects.equals(memoryStore.getString(key), expected)) {
+				return false;
+			}
+			//replayed as a simple put
+			return conditionalWrite(key, newValue, () -> memoryStore.compareAndSet(key, expected, newValue));
+		}
+	}
+
+	@Override
+	public BBVersionedValue getVersioned(final BBKey key) {
+		return memoryStore.getVersioned(key);
+	}
+
+	@Override
+	public boolean putIfVersion(final BBKey key, final String value, final long version) {
+		synchronized (writeLock) {
+			checkType(key, Type.String);
+			if (memoryStore.getVersioned(key).version() != version) {
+				return false;
+			}
+			return conditionalWrite(key, value, () -> memoryStore.putIfVersion(key, value, version));
+		}
+	}
+
+	@Override
+	public Integer getInteger(final BBKey key) {
+		return memoryStore.getInteger(key);
+	}
+
+	@Override
+	public void putInteger(final BBKey key, final Integer value) {
+		write(Op.PUT_INTEGER, key, Type.Integer, value == null ? null : String.valueOf(value), () -> {
+			memoryStore.putInteger(key, value);
+			return null;
+		});
+	}
+
+	@Override
+	public void incrBy(final BBKey key, final int value) {
+		write(Op.INCR_BY, key, Type.Integer, String.valueOf(value), () -> {
+			memoryStore.incrBy(key, value);
+			return null;
+		});
+	}
+
+	//------------------------------------
+	//- List
+	//------------------------------------
+	@Override
+	public long listSize(final BBKey key) {
+		return memoryStore.listSize(key);
+	}
+
+	@Override
+	public void listPush(final BBKey key, final String value) {
+		write(Op.LIST_PUSH, key, Type.List, value, () -> {
+			memoryStore.listPush(key, value);
+			return null;
+		});
+	}
+
+	@Override
+	public String listPop(final BBKey key) {
+		return write(Op.LIST_POP, key.key(), null, () -> memoryStore.listPop(key));
+	}
+
+	@Override
+	public String listPeek(final BBKey key) {
+		return memoryStore.listPeek(key);
+	}
+
+	@Override
+	public String listGet(final BBKey key, final int idx) {
+		return memoryStore.listGet(key, idx);
+	}
+
+	@Override
+	public void listPushLeft(final BBKey key, final String value) {
+		write(Op.LIST_PUSH_LEFT, key, Type.List, value, () -> {
+			memoryStore.listPushLeft(key, value);
+			return null;
+		});
+	}
+
+	@Override
+	public String listPopLeft(final BBKey key) {
+		return write(Op.LIST_POP_LEFT, key.key(), null, () -> memoryStore.listPopLeft(key));
+	}
+
+	@Override
+	public List<String> listRange(final BBKey key, final int from, final int to) {
+		return memoryStore.listRange(key, from, to);
+	}
+
+	@Override
+	public void listTrim(final BBKey key, final int from, final int to) {
+		write(Op.LIST_TRIM, key.key(), from + ":" + to, () -> {
+			memoryStore.listTrim(key, from, to);
+			return null;
+		});
+	}
+
+	@Override
+	public String getStoreName() {
+		return memoryStore.getStoreName();
+	}
+
+	//------------------------------------
+	//- Log
+	//------------------------------------
+	/**
+	 * Appends a write to the log then applies it in memory.
+	 * A write which can't be logged is not applied.
+	 */
+	private <R> R write(final Op op, final String key, final String value, final Supplier<R> memoryWrite) {
+		synchronized (writeLock) {
+			append(op, key, value);
+			final R result = memoryWrite.get();
+			compactIfNeeded();
+			return result;
+		}
+	}
+
+	/**
+	 * Checks the type of the key, then appends the write to the log and applies it in memory.
+	 * A write rejected because of its type is not logged.
+	 */
+	private <R> R write(final Op op, final BBKey key, final Type type, final String value, final Supplier<R> memoryWrite) {
+		synchronized (writeLock) {
+			checkType(key, type);
+			return write(op, key.key(), value, memoryWrite);
+		}
+	}
+
+	/**
+	 * Logs a conditional put whose condition has been checked, then applies it in memory.
+	 * If the key has expired meanwhile, the memory write fails : the key is deleted in the log too.
+	 */
+	private boolean conditionalWrite(final BBKey key, final String value, final BooleanSupplier memoryWrite) {
+		append(Op.PUT_STRING, key.key(), value);
+		final boolean written = memoryWrite.getAsBoolean();
+		if (!written) {
+			append(Op.DELETE, key.key(), null);
+		}
+		compactIfNeeded();
+		return written;
+	}
+
+	private void checkType(final BBKey key, final Type type) {
+		final Type previousType = memoryStore.getType(key);
+		if (previousType != null && previousType != type) {
+			throw new IllegalStateException("the type is already defined" + previousType);
+		}
+	}
+
+	private void sync() {
+		try {
+			log.sync();
+		} catch (final IOException e) {
+			LOGGER.error("the blackboard log can't be forced on the disk", e);
+		}
+	}
+
+	private void append(final Op op, final String key, final String value) {
+		try {
+			log.append(op, key, value);
+		} catch (final IOException e) {
+			throw WrappedException.wrap(e);
+		}
+	}
+
+	private void compactIfNeeded() {
+		if (log.getRecords() >= Math.max(compactionThreshold, 2 * compactedRecords)) {
+			try {
+				compact();
+			} catch (final IOException e) {
+				throw WrappedException.wrap(e);
+			}
+		}
+	}
+
+	private void compact() throws IOException {
+		log.compact(this::snapshot);
+		compactedRecords = log.getRecords();
+	}
+
+	/**
+	 * Describes the current state with the minimal list of records.
+	 */
+	private void snapshot(final RecordHandler handler) {
+		for (final BBKey key : memoryStore.keys(BBKeyPattern.of("/*"))) {
+			final Type type = memoryStore.getType(key);
+			if (type == Type.String) {
+				handler.accept(Op.PUT_STRING, key.key(), memoryStore.getString(key));
+			} else if (type == Type.Integer) {
+				final Integer value = memoryStore.getInteger(key);
+				handler.accept(Op.PUT_INTEGER, key.key(), value == null ? null : String.valueOf(value));
+			} else if (type == Type.List) {
+				final List<String> list = memoryStore.listRange(key, 0, -1);
+				if (list.isEmpty()) {
+					//keeps the type of an empty list
+					handler.accept(Op.LIST_PUSH, key.key(), "");
+					handler.accept(Op.LIST_POP, key.key(), null);
+				}
+				for (final String element : list) {
+					handler.accept(Op.LIST_PUSH, key.key(), element);
+				}
+			}
+			final Instant deadline = memoryStore.getExpiration(key);
+			if (deadline != null) {
+				handler.accept(Op.EXPIRE, key.key(), String.valueOf(deadline.toEpochMilli()));
+			}
+		}
+	}
+
+	/**
+	 * Replays a record of the log.
+	 */
+	private void apply(final Op op, final String key, final String value) {
+		switch (op) {
+			case PUT_STRING -> memoryStore.putString(BBKey.of(key), value);
+			case PUT_INTEGER -> memoryStore.putInteger(BBKey.of(key), value == null ? null : Integer.valueOf(value));
+			case INCR_BY -> memoryStore.incrBy(BBKey.of(key), Integer.parseInt(value));
+			case LIST_PUSH -> memoryStore.listPush(BBKey.of(key), value);
+			case LIST_POP -> memoryStore.listPop(BBKey.of(key));
+			case DELETE -> memoryStore.delete(BBKeyPattern.of(key));
+			case EXPIRE -> memoryStore.expireAt(BBKeyPattern.of(key), Instant.ofEpochMilli(Long.parseLong(value)));
+			case LIST_PUSH_LEFT -> memoryStore.listPushLeft(BBKey.of(key), value);
+			case LIST_POP_LEFT -> memoryStore.listPopLeft(BBKey.of(key));
+			case LIST_TRIM -> {
+				final int separator = value.indexOf(':');
+				memoryStore.listTrim(BBKey.of(key), Integer.parseInt(value.substring(0, separator)), Integer.parseInt(value.substring(separator + 1)));
+			}
+			default -> throw new IllegalStateException("unknown op " + op);
+		}
+	}
+}
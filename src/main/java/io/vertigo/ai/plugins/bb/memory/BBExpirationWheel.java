@@ -0,0 +1,112 @@
+package io.vertigo.ai.plugins.bb.memory;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertigo.ai.bb.BBKey;
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * A hashed timing wheel evicting the expired keys in the background.
+ *
+ * A key is put in the slot of its deadline, the wheel visits one slot per tick once the tick is over.
+ * So the cost of a tick depends on the keys expiring around this tick, not on the size of the store.
+ * A deadline beyond a turn of the wheel stays in its slot until the right turn.
+ *
+ * The deadlines are owned by the store : a key whose deadline has been changed or removed is simply dropped from its old slot.
+ */
+final class BBExpirationWheel {
+	private static final Logger LOGGER = LogManager.getLogger(BBExpirationWheel.class);
+	private static final long TICK_MILLIS = 1000;
+	private static final int SLOTS = 1024;
+
+	private final Function<BBKey, Long> deadlineOf;
+	private final Consumer<BBKey> onExpired;
+	private final Set<BBKey>[] slots;
+	private final ScheduledExecutorService executor;
+	//last tick visited
+	private volatile long lastTick;
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	BBExpirationWheel(final Function<BBKey, Long> deadlineOf, final Consumer<BBKey> onExpired) {
+		Assertion.check()
+				.isNotNull(deadlineOf)
+				.isNotNull(onExpired);
+		//---
+		this.deadlineOf = deadlineOf;
+		this.onExpired = onExpired;
+		slots = new Set[SLOTS];
+		for (int i = 0; i < SLOTS; i++) {
+			slots[i] = ConcurrentHashMap.newKeySet();
+		}
+		lastTick = tickOf(System.currentTimeMillis()) - 1;
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "bb-expiration-wheel");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Schedules the eviction of a key at its deadline.
+	 *
+	 * @param key the key
+	 * @param deadline the deadline in millis
+	 */
+	void schedule(final BBKey key, final long deadline) {
+		//a deadline in a tick already visited is evicted by the next tick
+		final long tick = Math.max(tickOf(deadline), lastTick + 1);
+		slots[slotOf(tick)].add(key);
+	}
+
+	void stop() {
+		executor.shutdownNow();
+	}
+
+	private void tick() {
+		final long now = System.currentTimeMillis();
+		//the current tick is not over
+		final long currentTick = tickOf(now) - 1;
+		//a late tick catches up the missed slots (at most one turn)
+		final long firstTick = Math.max(lastTick + 1, currentTick - SLOTS + 1);
+		for (long tick = firstTick; tick <= currentTick; tick++) {
+			final int slot = slotOf(tick);
+			for (final Iterator<BBKey> it = slots[slot].iterator(); it.hasNext();) {
+				final BBKey key = it.next();
+				//an exception would cancel the next ticks
+				try {
+					final Long deadline = deadlineOf.apply(key);
+					if (deadline == null) {
+						it.remove(); // deleted
+					} else if (deadline <= now) {
+						it.remove();
+						onExpired.accept(key);
+					} else if (slotOf(tickOf(deadline)) != slot) {
+						it.remove(); // rescheduled in another slot
+					}
+				} catch (final RuntimeException e) {
+					LOGGER.error("the expiration of the key " + key.key() + " has failed", e);
+				}
+			}
+		}
+		lastTick = currentTick;
+	}
+
+	private static long tickOf(final long millis) {
+		return millis / TICK_MILLIS;
+	}
+
+	private static int slotOf(final long tick) {
+		return (int) (tick % SLOTS);
+	}
+}
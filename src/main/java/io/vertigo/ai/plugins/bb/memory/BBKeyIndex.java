@@ -0,0 +1,176 @@
+package io.vertigo.ai.plugins.bb.memory;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.vertigo.ai.bb.BBKey;
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * Index of the keys organized as a tree of segments.
+ * The key /u/1/name is stored under the nodes u -> 1 -> name.
+ *
+ * A prefix lookup only visits the nodes below the prefix,
+ * so its cost depends on the number of matching keys and not on the size of the store.
+ *
+ * Lookups are lock-free, updates are serialized.
+ */
+final class BBKeyIndex {
+	private final Node root = new Node();
+
+	private static final class Node {
+		private final Map<String, Node> children = new ConcurrentHashMap<>();
+		//the key ending on this node or null if the node is only a path
+		private volatile BBKey key;
+	}
+
+	synchronized void add(final BBKey key) {
+		Assertion.check().isNotNull(key);
+		//---
+		Node node = root;
+		for (final String segment : segments(key.key())) {
+			node = node.children.computeIfAbsent(segment, s -> new Node());
+		}
+		node.key = key;
+	}
+
+	synchronized void remove(final BBKey key) {
+		Assertion.check().isNotNull(key);
+		//---
+		final String[] segments = segments(key.key());
+		final Deque<Node> path = new ArrayDeque<>();
+		Node node = root;
+		for (final String segment : segments) {
+			path.push(node);
+			node = node.children.get(segment);
+			if (node == null) {
+				return;
+			}
+		}
+		node.key = null;
+		prune(node, path, segments, segments.length);
+	}
+
+	/**
+	 * Returns all the keys starting with the prefix.
+	 * The prefix is a key pattern without its final *
+	 *  - /u/ returns all the keys under /u
+	 *  - /u returns /u, all the keys under /u and all the keys starting with /u such as /user
+	 *
+	 * @param prefix the prefix
+	 * @return the keys
+	 */
+	Set<BBKey> find(final String prefix) {
+		final String[] segments = prefixSegments(prefix);
+		final Node parent = lookup(segments, null);
+		if (parent == null) {
+			return Collections.emptySet();
+		}
+		final String partialSegment = segments[segments.length - 1];
+		final Set<BBKey> result = new HashSet<>();
+		parent.children.forEach((segment, child) -> {
+			if (segment.startsWith(partialSegment)) {
+				collect(child, result);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Removes all the keys starting with the prefix.
+	 * @see #find(String)
+	 *
+	 * @param prefix the prefix
+	 * @return the removed keys
+	 */
+	synchronized Set<BBKey> removeAll(final String prefix) {
+		final String[] segments = prefixSegments(prefix);
+		final Deque<Node> path = new ArrayDeque<>();
+		final Node parent = lookup(segments, path);
+		if (parent == null) {
+			return Collections.emptySet();
+		}
+		final String partialSegment = segments[segments.length - 1];
+		final Set<BBKey> result = new HashSet<>();
+		parent.children.entrySet().removeIf(entry -> {
+			if (entry.getKey().startsWith(partialSegment)) {
+				collect(entry.getValue(), result);
+				return true;
+			}
+			return false;
+		});
+		prune(parent, path, segments, segments.length - 1);
+		return result;
+	}
+
+	synchronized void clear() {
+		root.children.clear();
+	}
+
+	//------------------------------------
+	//- Utils                             -
+	//------------------------------------
+
+	private static String[] segments(final String key) {
+		// /u/1/name => [u, 1, name]
+		return key.substring(1).split("/");
+	}
+
+	private static String[] prefixSegments(final String prefix) {
+		Assertion.check()
+				.isTrue(prefix.charAt(0) == '/', "prefix {0} doesn't start with the first char '/'", prefix);
+		//---
+		// the last segment is partial : /u/ => [u, ""] and /u => [u]
+		return prefix.substring(1).split("/", -1);
+	}
+
+	/**
+	 * Walks through all the segments except the last one (which is partial).
+	 */
+	private Node lookup(final String[] segments, final Deque<Node> path) {
+		Node node = root;
+		for (int i = 0; i < segments.length - 1; i++) {
+			if (path != null) {
+				path.push(node);
+			}
+			node = node.children.get(segments[i]);
+			if (node == null) {
+				return null;
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * Removes the empty nodes from the node up to the root.
+	 */
+	private static void prune(final Node node, final Deque<Node> path, final String[] segments, final int depth) {
+		Node current = node;
+		for (int i = depth - 1; i >= 0; i--) {
+			final Node parent = path.pop();
+			if (current.key != null || !current.children.isEmpty()) {
+				return;
+			}
+			parent.children.remove(segments[i], current);
+			current = parent;
+		}
+	}
+
+	private static void collect(final Node node, final Set<BBKey> result) {
+		final Deque<Node> stack = new ArrayDeque<>();
+		stack.push(node);
+		while (!stack.isEmpty()) {
+			final Node current = stack.pop();
+			final BBKey key = current.key;
+			if (key != null) {
+				result.add(key);
+			}
+			current.children.values().forEach(stack::push);
+		}
+	}
+}
@@ -5,61 +5,182 @@ import java.util.Collections;
 import java.util.List;
 
 /**
- * This structure is hybrid and can be used as a stack or a list.
+ * This structure is hybrid and can be used as a stack, a queue or a list.
+ * The values are kept in a ring buffer : the operations at both ends and the reads by index are O(1).
+ * The right end is the top of the stack, the left end is the index 0.
+ * A list is shared by all the sessions using its key, so all the accesses are synchronized on the list itself.
 
  * @author pchretien
  */
 final class BBList {
 	static final BBList EMPTY = new BBList(false);
+	private static final int INITIAL_CAPACITY = 8;
 
-	private final List<String> values;
+	private final boolean mutable;
+	private String[] values;
+	//index of the left end in the ring buffer
+	private int head;
+	private int size;
 
 	BBList() {
 		this(true);
 	}
 
 	private BBList(final boolean mutable) {
-		values = mutable
-				? new ArrayList<>()
-				: Collections.emptyList();
+		this.mutable = mutable;
+		values = new String[mutable ? INITIAL_CAPACITY : 0];
 	}
 
-	int size() {
-		return values.size();
+	synchronized int size() {
+		return size;
 	}
 
-	void push(final String value) {
-		values.add(value);
+	synchronized void push(final String value) {
+		ensureCapacity();
+		values[slot(size)] = value;
+		size++;
 	}
 
-	String pop() {
-		if (values.isEmpty()) {
+	synchronized void pushLeft(final String value) {
+		ensureCapacity();
+		head = (head - 1 + values.length) % values.length;
+		values[head] = value;
+		size++;
+	}
+
+	synchronized String pop() {
+		if (size == 0) {
+			return null;
+		}
+		final int slot = slot(size - 1);
+		final String value = values[slot];
+		values[slot] = null;
+		size--;
+		return value;
+	}
+
+	synchronized String popLeft() {
+		if (size == 0) {
 			return null;
 		}
-		return values.remove(values.size() - 1);
+		final String value = values[head];
+		values[head] = null;
+		head = (head + 1) % values.length;
+		size--;
+		return value;
 	}
 
-	String peek() {
-		if (values.isEmpty()) {
+	synchronized String peek() {
+		if (size == 0) {
 			return null;
 		}
-		return values.get(values.size() - 1);
+		return values[slot(size - 1)];
 	}
 
-	String get(final int idx) {
+	synchronized String get(final int idx) {
 		int index;
 		if (idx < 0) {
-			index = values.size() + idx;
+			index = size + idx;
 			if (index < 0) {
 				index = 0;
 			}
 		} else {
 			index = idx;
 		}
-		if (index >= 0 && index < values.size()) {
-			return values.get(index);
+		if (index >= 0 && index < size) {
+			return values[slot(index)];
 		}
 		return null;
 	}
 
+	/**
+	 * Returns the values between two indexes (both included).
+	 * A negative index starts from the right end (-1 is the last value), the indexes out of the list are ignored.
+	 *
+	 * @param from the first index
+	 * @param to the last index
+	 * @return the values
+	 */
+	synchronized List<String> range(final int from, final int to) {
+		final int start = toRangeStart(from);
+		final int end = toRangeEnd(to);
+		if (start > end) {
+			return Collections.emptyList();
+		}
+		final List<String> range = new ArrayList<>(end - start + 1);
+		for (int i = start; i <= end; i++) {
+			range.add(values[slot(i)]);
+		}
+		return range;
+	}
+
+	/**
+	 * Keeps only the values between two indexes (both included), with the same indexes as range.
+	 *
+	 * @param from the first index
+	 * @param to the last index
+	 * @return the removed values
+	 */
+	synchronized List<String> trim(final int from, final int to) {
+		if (size == 0) {
+			return Collections.emptyList();
+		}
+		final int start = toRangeStart(from);
+		final int end = toRangeEnd(to);
+		final List<String> removed = new ArrayList<>();
+		if (start > end) {
+			removed.addAll(range(0, -1));
+			clear();
+			return removed;
+		}
+		while (size > end + 1) {
+			removed.add(pop());
+		}
+		for (int i = 0; i < start; i++) {
+			removed.add(popLeft());
+		}
+		return removed;
+	}
+
+	/**
+	 * @return a copy of the values, from the left to the right
+	 */
+	synchronized List<String> toList() {
+		return range(0, -1);
+	}
+
+	private int toRangeStart(final int from) {
+		final int start = from < 0 ? size + from : from;
+		return Math.max(start, 0);
+	}
+
+	private int toRangeEnd(final int to) {
+		final int end = to < 0 ? size + to : to;
+		return Math.min(end, size - 1);
+	}
+
+	private int slot(final int index) {
+		return (head + index) % values.length;
+	}
+
+	private void ensureCapacity() {
+		if (!mutable) {
+			throw new UnsupportedOperationException();
+		}
+		if (size == values.length) {
+			final String[] newValues = new String[values.length * 2];
+			for (int i = 0; i < size; i++) {
+				newValues[i] = values[slot(i)];
+			}
+			values = newValues;
+			head = 0;
+		}
+	}
+
+	private void clear() {
+		values = new String[INITIAL_CAPACITY];
+		head = 0;
+		size = 0;
+	}
+
 }
@@ -0,0 +1,160 @@
+package io.vertigo.ai.plugins.bb.memory;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.ToIntFunction;
+
+import io.vertigo.ai.bb.BBKey;
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * The budget of a memory store : a max number of keys and/or a max approximate size in memory.
+ *
+ * The keys are grouped by roots, a root is defined by the first segments of the keys (one segment by default : /session1/...).
+ * When the budget is exceeded, the least recently used roots are evicted with all their keys,
+ * until the store is back under 90% of its budget.
+ *
+ * The sizes are approximate : they count the keys, the strings (one byte per char) and the elements of the lists with a fixed overhead.
+ * An integer is included in the overhead of its key.
+ */
+final class BBMemoryBudget {
+	private static final long KEY_OVERHEAD = 160;
+	private static final long STRING_OVERHEAD = 48;
+	private static final double LOW_WATERMARK = 0.9;
+
+	private static final class Root {
+		volatile long lastAccess;
+	}
+
+	private final long maxMemory;
+	private final int maxKeys;
+	private final int rootDepth;
+	private final Map<String, Root> roots = new ConcurrentHashMap<>();
+	private final AtomicLong memoryUsage = new AtomicLong();
+	private final LongAdder evictedRoots = new LongAdder();
+	private final LongAdder evictedKeys = new LongAdder();
+
+	/**
+	 * @param maxMemory the max size in bytes (0 : no limit)
+	 * @param maxKeys the max number of keys (0 : no limit)
+	 * @param rootDepth the number of segments of a root
+	 */
+	BBMemoryBudget(final long maxMemory, final int maxKeys, final int rootDepth) {
+		Assertion.check()
+				.isTrue(maxMemory >= 0, "the max memory must be >= 0")
+				.isTrue(maxKeys >= 0, "the max keys must be >= 0")
+				.isTrue(rootDepth > 0, "the root depth must be > 0");
+		//---
+		this.maxMemory = maxMemory;
+		this.maxKeys = maxKeys;
+		this.rootDepth = rootDepth;
+	}
+
+	boolean isEnabled() {
+		return maxMemory > 0 || maxKeys > 0;
+	}
+
+	/**
+	 * Marks the root of a key as used.
+	 *
+	 * @param key the key
+	 */
+	void touch(final BBKey key) {
+		final String root = rootOf(key);
+		final Root existingRoot = roots.get(root);
+		(existingRoot != null ? existingRoot : roots.computeIfAbsent(root, r -> new Root())).lastAccess = System.nanoTime();
+	}
+
+	void add(final long size) {
+		memoryUsage.addAndGet(size);
+	}
+
+	void clear() {
+		roots.clear();
+		memoryUsage.set(0);
+	}
+
+	boolean isExceeded(final int keyCount) {
+		return isExceeded(keyCount, 1);
+	}
+
+	private boolean isExceeded(final int keyCount, final double ratio) {
+		return (maxMemory > 0 && memoryUsage.get() > maxMemory * ratio)
+				|| (maxKeys > 0 && keyCount > maxKeys * ratio);
+	}
+
+	/**
+	 * Evicts the least recently used roots until the store is back under its low watermark.
+	 *
+	 * @param keyCount the number of keys in the store
+	 * @param evictRoot evicts a root and returns the number of evicted keys
+	 */
+	synchronized void evict(final IntSupplier keyCount, final ToIntFunction<String> evictRoot) {
+		if (!isExceeded(keyCount.getAsInt())) {
+			return; // already done by another thread
+		}
+		final List<Map.Entry<String, Root>> sortedRoots = roots.entrySet().stream()
+				.sorted(Comparator.comparingLong(entry -> entry.getValue().lastAccess))
+				.toList();
+		for (final Map.Entry<String, Root> entry : sortedRoots) {
+			if (!isExceeded(keyCount.getAsInt(), LOW_WATERMARK)) {
+				return;
+			}
+			roots.remove(entry.getKey());
+			evictedKeys.add(evictRoot.applyAsInt(entry.getKey()));
+			evictedRoots.increment();
+		}
+	}
+
+	/**
+	 * Returns the root of a key : its first segments.
+	 *
+	 * @param key the key
+	 * @return the root
+	 */
+	String rootOf(final BBKey key) {
+		final String keyString = key.key();
+		int end = 0;
+		for (int depth = 0; depth < rootDepth; depth++) {
+			end = keyString.indexOf('/', end + 1);
+			if (end < 0) {
+				return keyString;
+			}
+		}
+		return keyString.substring(0, end);
+	}
+
+	long getMemoryUsage() {
+		return memoryUsage.get();
+	}
+
+	long getEvictedRoots() {
+		return evictedRoots.sum();
+	}
+
+	long getEvictedKeys() {
+		return evictedKeys.sum();
+	}
+
+	//------------------------------------
+	//- Sizes
+	//------------------------------------
+	static long sizeOfKey(final BBKey key) {
+		return KEY_OVERHEAD + 2L * key.key().length();
+	}
+
+	static long sizeOfValue(final Object value) {
+		if (value instanceof final String string) {
+			return STRING_OVERHEAD + string.length();
+		}
+		if (value instanceof final BBOffHeapValues.OffHeapString offHeapString) {
+			return STRING_OVERHEAD + offHeapString.length();
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,142 @@
+package io.vertigo.ai.plugins.bb.memory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * The string values of a memory store kept outside of the heap, in direct buffers.
+ *
+ * The values are appended in segments, a value is never written again once allocated.
+ * A value which is replaced or deleted is released : the segment only counts its live bytes.
+ * A sealed segment with less than a quarter of live bytes becomes sparse.
+ * The sparse segments are compacted together by the store when they represent an eighth of the allocated segments :
+ * their live values are copied in the current segment with a single scan of the store, in the background.
+ * A segment is freed by the GC when no value references it anymore, so a reader can never see a reused memory.
+ */
+final class BBOffHeapValues {
+	private static final int SEGMENT_SIZE = 4 * 1024 * 1024;
+	private static final int MIN_LIVE_RATIO = 4; // a sealed segment is sparse under 1/4 of live bytes
+	private static final int COMPACTION_RATIO = 8; // the sparse segments are compacted when they are 1/8 of the segments
+
+	static final class Segment {
+		private final ByteBuffer buffer;
+		private final AtomicInteger liveBytes = new AtomicInteger();
+		//guarded by BBOffHeapValues.this
+		private int position;
+		private boolean sealed;
+
+		private Segment(final int capacity) {
+			buffer = ByteBuffer.allocateDirect(capacity);
+		}
+	}
+
+	/**
+	 * A string stored off heap.
+	 */
+	record OffHeapString(Segment segment, int offset, int length) {
+		String read() {
+			final byte[] bytes = new byte[length];
+			segment.buffer.get(offset, bytes, 0, length);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+
+	private Segment current = new Segment(SEGMENT_SIZE);
+	private final List<Segment> segments = new ArrayList<>(List.of(current));
+	private Set<Segment> sparseSegments = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final LongAdder usedBytes = new LongAdder();
+
+	/**
+	 * Copies a string off heap.
+	 *
+	 * @param value the string
+	 * @return the reference to the off heap string
+	 */
+	OffHeapString allocate(final String value) {
+		Assertion.check().isNotNull(value);
+		//---
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		final Segment segment;
+		final int offset;
+		synchronized (this) {
+			if (current.position + bytes.length > current.buffer.capacity()) {
+				current.sealed = true;
+				current = new Segment(Math.max(SEGMENT_SIZE, bytes.length));
+				segments.add(current);
+			}
+			segment = current;
+			offset = current.position;
+			current.position += bytes.length;
+		}
+		segment.buffer.put(offset, bytes);
+		segment.liveBytes.addAndGet(bytes.length);
+		usedBytes.add(bytes.length);
+		return new OffHeapString(segment, offset, bytes.length);
+	}
+
+	/**
+	 * Releases a string which is not referenced anymore.
+	 *
+	 * @param value the released string
+	 * @return if the sparse segments must be compacted
+	 */
+	boolean release(final OffHeapString value) {
+		final Segment segment = value.segment();
+		final int liveBytes = segment.liveBytes.addAndGet(-value.length());
+		usedBytes.add(-value.length());
+		synchronized (this) {
+			if (segment.sealed && liveBytes * MIN_LIVE_RATIO < segment.buffer.capacity() && segments.remove(segment)) {
+				sparseSegments.add(segment);
+				return sparseSegments.size() * COMPACTION_RATIO >= segments.size();
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the sparse segments to compact, they are forgotten by this object.
+	 *
+	 * @return the sparse segments
+	 */
+	synchronized Set<Segment> takeSparseSegments() {
+		final Set<Segment> taken = sparseSegments;
+		sparseSegments = Collections.newSetFromMap(new IdentityHashMap<>());
+		return taken;
+	}
+
+	synchronized void clear() {
+		current = new Segment(SEGMENT_SIZE);
+		segments.clear();
+		segments.add(current);
+		sparseSegments.clear();
+		usedBytes.reset();
+	}
+
+	/**
+	 * @return the size of the live strings in bytes
+	 */
+	long getUsedBytes() {
+		return usedBytes.sum();
+	}
+
+	/**
+	 * @return the size of the allocated segments in bytes
+	 */
+	synchronized long getAllocatedBytes() {
+		return segments.stream()
+				.mapToLong(segment -> segment.buffer.capacity())
+				.sum()
+				+ sparseSegments.stream()
+						.mapToLong(segment -> segment.buffer.capacity())
+						.sum();
+	}
+}
@@ -0,0 +1,76 @@
+package io.vertigo.ai.plugins.bb.memory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertigo.ai.bb.BBKey;
+import io.vertigo.ai.bb.BBKeyPattern;
+import io.vertigo.ai.bb.BBWatch;
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * The watches of a memory store.
+ *
+ * The listeners are called by the thread of the write, once the write is done.
+ * A store without watch only pays a volatile read per write.
+ * A failing listener is logged, it doesn't fail the write nor the other listeners.
+ */
+final class BBWatchers {
+	private static final Logger LOGGER = LogManager.getLogger(BBWatchers.class);
+
+	private final class Watch implements BBWatch {
+		private final BBKeyPattern keyPattern;
+		private final Consumer<BBKey> listener;
+
+		private Watch(final BBKeyPattern keyPattern, final Consumer<BBKey> listener) {
+			this.keyPattern = keyPattern;
+			this.listener = listener;
+		}
+
+		@Override
+		public void close() {
+			watches.remove(this);
+		}
+	}
+
+	//the watches are often read and rarely changed
+	private final List<Watch> watches = new CopyOnWriteArrayList<>();
+
+	BBWatch watch(final BBKeyPattern keyPattern, final Consumer<BBKey> listener) {
+		Assertion.check()
+				.isNotNull(keyPattern)
+				.isNotNull(listener);
+		//---
+		final Watch watch = new Watch(keyPattern, listener);
+		watches.add(watch);
+		return watch;
+	}
+
+	boolean isEmpty() {
+		return watches.isEmpty();
+	}
+
+	/**
+	 * Notifies the listeners watching a changed key.
+	 *
+	 * @param key the changed key
+	 */
+	void changed(final BBKey key) {
+		if (watches.isEmpty()) {
+			return;
+		}
+		for (final Watch watch : watches) {
+			if (watch.keyPattern.matches(key)) {
+				try {
+					watch.listener.accept(key);
+				} catch (final RuntimeException e) {
+					LOGGER.error("the listener of the key pattern " + watch.keyPattern.keyPattern() + " has failed", e);
+				}
+			}
+		}
+	}
+}
@@ -1,35 +1,247 @@
 package io.vertigo.ai.plugins.bb.memory;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
 import io.vertigo.ai.bb.BBKey;
 import io.vertigo.ai.bb.BBKeyPattern;
+import io.vertigo.ai.bb.BBVersionedValue;
+import io.vertigo.ai.bb.BBWatch;
 import io.vertigo.ai.bb.BlackBoard.Type;
 import io.vertigo.ai.bb.BlackBoardManager;
 import io.vertigo.ai.impl.bb.BlackBoardStorePlugin;
+import io.vertigo.ai.plugins.bb.memory.BBOffHeapValues.OffHeapString;
+import io.vertigo.core.analytics.metric.Metric;
+import io.vertigo.core.analytics.metric.Metrics;
 import io.vertigo.core.lang.Assertion;
+import io.vertigo.core.lang.Builder;
+import io.vertigo.core.lang.WrappedException;
+import io.vertigo.core.node.component.Activeable;
 import io.vertigo.core.param.ParamValue;
 
-public final class MemoryBlackBoardStorePlugin implements BlackBoardStorePlugin {
-	private final Map<BBKey, Type> keys = Collections.synchronizedMap(new LinkedHashMap<>());
-	private final Map<BBKey, Object> values = Collections.synchronizedMap(new LinkedHashMap<>());
-	private final Map<BBKey, BBList> lists = Collections.synchronizedMap(new LinkedHashMap<>());
+/**
+ * In memory implementation of a BlackBoard store.
+ * The maps are concurrent : reads are lock-free and each update is atomic for its key.
+ * There is no global lock shared by all the sessions.
+ *
+ * The store can be saved in a binary snapshot and restored (see snapshot and restore).
+ * If a snapshotPath is defined, the store is restored at startup and saved at shutdown.
+ *
+ * The expired keys are evicted in the background by a timing wheel (see BBExpirationWheel),
+ * a key read after its deadline is evicted immediately.
+ *
+ * The store can be bounded by a max number of keys and/or a max approximate memory (see BBMemoryBudget),
+ * the least recently used roots (sessions) are evicted with all their keys when the budget is exceeded.
+ *
+ * In offHeap mode the string values are kept outside of the heap (see BBOffHeapValues), the keys stay in the heap to be indexed.
+ */
+public final class MemoryBlackBoardStorePlugin implements BlackBoardStorePlugin, Activeable {
+	//'BBS2' : the entries have a deadline since 'BBS1'
+	private static final int SNAPSHOT_MAGIC = 0x42425332;
+	private static final int SNAPSHOT_END = 0xFF;
+
+	/**
+	 * A string value with its version.
+	 */
+	private record Versioned(Object storedValue, long version) {
+	}
+
+	private final Map<BBKey, Type> keys = new ConcurrentHashMap<>();
+	//null values are not stored : a key without value returns null as expected
+	//the integers are stored in counters (AtomicInteger) incremented in place, without lock nor boxing
+	//the strings are stored as String or as OffHeapString in offHeap mode
+	//the strings used through the versioned api are wrapped with their version (Versioned), any other write drops the version
+	private final Map<BBKey, Object> values = new ConcurrentHashMap<>();
+	private final Map<BBKey, BBList> lists = new ConcurrentHashMap<>();
+	//the versions are taken from a single sequence : a key deleted then written again never gets back a previous version
+	//starts from the current time, so the versions read before a restart are not given again
+	private final AtomicLong versionSequence = new AtomicLong(System.currentTimeMillis() * 1000);
+	//all the keys (including the lists) indexed by their segments for the prefix scans
+	private final BBKeyIndex index = new BBKeyIndex();
+	//deadlines (in millis) of the keys with a ttl
+	private final Map<BBKey, Long> expirations = new ConcurrentHashMap<>();
+	//created with the first expiration
+	private BBExpirationWheel expirationWheel;
+	private final LongAdder expiredKeys = new LongAdder();
+	private final BBMemoryBudget budget;
+	private final BBWatchers watchers = new BBWatchers();
+	//null if the strings are stored in the heap
+	private final BBOffHeapValues offHeapValues;
+	//compacts the sparse off heap segments in the background, null if the strings are stored in the heap
+	private final ExecutorService compactor;
+	private final AtomicBoolean compactionRequested = new AtomicBoolean();
 
 	private final Optional<String> storeNameOpt;
+	private final Optional<Path> snapshotPathOpt;
 
+	/**
+	 * Constructor.
+	 * @param storeNameOpt the name of the store (main by default)
+	 * @param snapshotPathOpt the file used to restore the store at startup and to save it at shutdown (none by default)
+	 * @param maxMemoryMbOpt the max approximate memory used by the store in MB (no limit by default)
+	 * @param maxKeysOpt the max number of keys (no limit by default)
+	 * @param rootDepthOpt the number of segments of the roots evicted as a whole (1 by default : /session1/...)
+	 * @param offHeapOpt if the string values are stored outside of the heap (false by default)
+	 */
 	@Inject
-	public MemoryBlackBoardStorePlugin(final @ParamValue("storeName") Optional<String> storeNameOpt) {
+	public MemoryBlackBoardStorePlugin(
+			final @ParamValue("storeName") Optional<String> storeNameOpt,
+			final @ParamValue("snapshotPath") Optional<String> snapshotPathOpt,
+			final @ParamValue("maxMemoryMb") Optional<Integer> maxMemoryMbOpt,
+			final @ParamValue("maxKeys") Optional<Integer> maxKeysOpt,
+			final @ParamValue("rootDepth") Optional<Integer> rootDepthOpt,
+			final @ParamValue("offHeap") Optional<Boolean> offHeapOpt) {
 		Assertion.check()
-				.isNotNull(storeNameOpt);
+				.isNotNull(storeNameOpt)
+				.isNotNull(snapshotPathOpt)
+				.isNotNull(maxMemoryMbOpt)
+				.isNotNull(maxKeysOpt)
+				.isNotNull(rootDepthOpt)
+				.isNotNull(offHeapOpt);
 		// ---
 		this.storeNameOpt = storeNameOpt;
+		this.snapshotPathOpt = snapshotPathOpt.map(Path::of);
+		budget = new BBMemoryBudget(maxMemoryMbOpt.orElse(0) * 1024L * 1024L, maxKeysOpt.orElse(0), rootDepthOpt.orElse(1));
+		if (offHeapOpt.orElse(false)) {
+			offHeapValues = new BBOffHeapValues();
+			compactor = Executors.newSingleThreadExecutor(runnable -> {
+				final Thread thread = new Thread(runnable, "bb-offheap-compactor");
+				thread.setDaemon(true);
+				return thread;
+			});
+		} else {
+			offHeapValues = null;
+			compactor = null;
+		}
+	}
+
+	/**
+	 * @return a builder of a store created outside of the injection (embedded in another store, tests...)
+	 */
+	public static StoreBuilder builder() {
+		return new StoreBuilder();
+	}
+
+	/**
+	 * Builds a store with the default values of the params not set.
+	 */
+	public static final class StoreBuilder implements Builder<MemoryBlackBoardStorePlugin> {
+		private Optional<String> storeNameOpt = Optional.empty();
+		private Optional<String> snapshotPathOpt = Optional.empty();
+		private Optional<Integer> maxMemoryMbOpt = Optional.empty();
+		private Optional<Integer> maxKeysOpt = Optional.empty();
+		private Optional<Integer> rootDepthOpt = Optional.empty();
+		private Optional<Boolean> offHeapOpt = Optional.empty();
+
+		private StoreBuilder() {
+			//created by MemoryBlackBoardStorePlugin.builder()
+		}
+
+		public StoreBuilder withStoreName(final Optional<String> storeNameOpt) {
+			Assertion.check().isNotNull(storeNameOpt);
+			//---
+			this.storeNameOpt = storeNameOpt;
+			return this;
+		}
+
+		public StoreBuilder withSnapshotPath(final String snapshotPath) {
+			snapshotPathOpt = Optional.of(snapshotPath);
+			return this;
+		}
+
+		public StoreBuilder withMaxMemoryMb(final int maxMemoryMb) {
+			maxMemoryMbOpt = Optional.of(maxMemoryMb);
+			return this;
+		}
+
+		public StoreBuilder withMaxKeys(final int maxKeys) {
+			maxKeysOpt = Optional.of(maxKeys);
+			return this;
+		}
+
+		public StoreBuilder withRootDepth(final int rootDepth) {
+			rootDepthOpt = Optional.of(rootDepth);
+			return this;
+		}
+
+		public StoreBuilder withOffHeap() {
+			offHeapOpt = Optional.of(true);
+			return this;
+		}
+
+		@Override
+		public MemoryBlackBoardStorePlugin build() {
+			return new MemoryBlackBoardStorePlugin(storeNameOpt, snapshotPathOpt, maxMemoryMbOpt, maxKeysOpt, rootDepthOpt, offHeapOpt);
+		}
+	}
+
+	@Override
+	public void start() {
+		snapshotPathOpt
+				.filter(Files::exists)
+				.ifPresent(snapshotPath -> {
+					try (InputStream inputStream = Files.newInputStream(snapshotPath)) {
+						restore(inputStream);
+					} catch (final IOException e) {
+						throw WrappedException.wrap(e);
+					}
+				});
+	}
+
+	@Override
+	public void stop() {
+		synchronized (this) {
+			if (expirationWheel != null) {
+				expirationWheel.stop();
+				expirationWheel = null;
+			}
+		}
+		if (compactor != null) {
+			compactor.shutdownNow();
+		}
+		snapshotPathOpt.ifPresent(snapshotPath -> {
+			//the snapshot replaces the previous one only when complete
+			final Path tmpPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+			try {
+				if (snapshotPath.getParent() != null) {
+					Files.createDirectories(snapshotPath.getParent());
+				}
+				try (OutputStream outputStream = Files.newOutputStream(tmpPath)) {
+					snapshot(BBKeyPattern.of("/*"), outputStream);
+				}
+				Files.move(tmpPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (final IOException e) {
+				throw WrappedException.wrap(e);
+			}
+		});
 	}
 
 	//------------------------------------
@@ -39,6 +251,7 @@ public final class MemoryBlackBoardStorePlugin implements BlackBoardStorePlugin
 	public boolean exists(final BBKey key) {
 		Assertion.check().isNotNull(key);
 		// ---
+		access(key);
 		return keys.containsKey(key);
 	}
 
@@ -48,20 +261,21 @@ public final class MemoryBlackBoardStorePlugin implements BlackBoardStorePlugin
 		final var keyPatternString = keyPattern.keyPattern();
 		//---
 		if ("/*".equals(keyPatternString)) {
-			return keys();
+			return expirations.isEmpty()
+					? keys()
+					: keys().stream()
+							.filter(key -> !isExpired(key))
+							.collect(Collectors.toSet());
 		}
 		if (keyPatternString.endsWith("*")) {
-			final var prefix = keyPatternString.replaceAll("\\*", "");
-			// Cf Collections.synchronizedMap Javadoc
-			Set<BBKey> keySet = keys();
-			synchronized (keys) {
-				return keySet.stream()
-						.filter(it -> it.key().startsWith(prefix))
-						.collect(Collectors.toSet());
-			}
+			final var prefix = keyPatternString.substring(0, keyPatternString.length() - 1);
+			return index.find(prefix).stream()
+					.filter(keys::containsKey)
+					.filter(key -> !isExpired(key))
+					.collect(Collectors.toSet());
 		}
 		final var key = BBKey.of(keyPatternString);
-		return keys.containsKey(key)
+		return exists(key)
 				? Set.of(key)
 				: Collections.emptySet();
 	}
@@ -75,43 +289,225 @@ public final class MemoryBlackBoardStorePlugin implements BlackBoardStorePlugin
 		Assertion.check().isNotNull(keyPattern);
 		final var keyPatternString = keyPattern.keyPattern();
 		if ("/*".equals(keyPatternString)) {
+			final List<BBKey> deletedKeys = watchers.isEmpty() ? List.of() : List.copyOf(keys.keySet());
+			index.clear();
 			values.clear();
 			keys.clear();
 			lists.clear();
+			expirations.clear();
+			budget.clear();
+			if (offHeapValues != null) {
+				offHeapValues.clear();
+			}
+			deletedKeys.forEach(watchers::changed);
 		} else if (keyPatternString.endsWith("*")) {
-			final var prefix = keyPatternString.replaceAll("\\*", "");
-			values.keySet().removeIf(s -> s.key().startsWith(prefix));
-			lists.keySet().removeIf(s -> s.key().startsWith(prefix));
-			keys.keySet().removeIf(s -> s.key().startsWith(prefix));
+			final var prefix = keyPatternString.substring(0, keyPatternString.length() - 1);
+			index.removeAll(prefix)
+					.forEach(this::doDelete);
 		} else {
 			final var key = BBKey.of(keyPatternString);
-			values.remove(key);
-			lists.remove(key);
-			keys.remove(key);
+			index.remove(key);
+			doDelete(key);
+		}
+	}
+
+	private void doDelete(final BBKey key) {
+		final Object value = unversioned(values.remove(key));
+		release(value);
+		final BBList list = lists.remove(key);
+		final boolean removed = keys.remove(key) != null;
+		expirations.remove(key);
+		if (budget.isEnabled() && removed) {
+			long size = BBMemoryBudget.sizeOfKey(key) + BBMemoryBudget.sizeOfValue(value);
+			if (list != null) {
+				for (final String element : list.toList()) {
+					size += BBMemoryBudget.sizeOfValue(element);
+				}
+			}
+			budget.add(-size);
+		}
+		if (removed) {
+			watchers.changed(key);
+		}
+	}
+
+	//------------------------------------
+	//--- Budget
+	//------------------------------------
+	/**
+	 * Called before each access to a key.
+	 */
+	private void access(final BBKey key) {
+		evictIfExpired(key);
+		if (budget.isEnabled()) {
+			budget.touch(key);
+		}
+	}
+
+	/**
+	 * Called after each write, evicts the least recently used roots if the budget is exceeded.
+	 */
+	private void enforceBudget() {
+		if (budget.isEnabled() && budget.isExceeded(keys.size())) {
+			budget.evict(keys::size, this::evictRoot);
+		}
+	}
+
+	private int evictRoot(final String root) {
+		final Set<BBKey> rootKeys = index.removeAll(root + "/");
+		rootKeys.forEach(this::doDelete);
+		final BBKey rootKey = BBKey.of(root);
+		if (keys.containsKey(rootKey)) {
+			index.remove(rootKey);
+			doDelete(rootKey);
+			return rootKeys.size() + 1;
+		}
+		return rootKeys.size();
+	}
+
+	//------------------------------------
+	//--- Watch
+	//------------------------------------
+	/**
+	 * The listeners are called by the thread of the write (or of the expiration), once the write is done.
+	 */
+	@Override
+	public BBWatch watch(final BBKeyPattern keyPattern, final Consumer<BBKey> listener) {
+		return watchers.watch(keyPattern, listener);
+	}
+
+	//------------------------------------
+	//--- Expiration
+	//------------------------------------
+	@Override
+	public void expire(final BBKeyPattern keyPattern, final Duration ttl) {
+		Assertion.check()
+				.isNotNull(keyPattern)
+				.isNotNull(ttl);
+		//---
+		expireAt(keyPattern, Instant.now().plus(ttl));
+	}
+
+	/**
+	 * Sets the deadline of all the existing keys matching the pattern.
+	 * A key keeps its deadline when it is written again, until it is deleted or expires.
+	 *
+	 * @param keyPattern the pattern
+	 * @param deadline the deadline
+	 */
+	public void expireAt(final BBKeyPattern keyPattern, final Instant deadline) {
+		Assertion.check()
+				.isNotNull(keyPattern)
+				.isNotNull(deadline);
+		//---
+		final long deadlineMillis = deadline.toEpochMilli();
+		final BBExpirationWheel wheel = getExpirationWheel();
+		for (final BBKey key : keys(keyPattern)) {
+			expirations.put(key, deadlineMillis);
+			wheel.schedule(key, deadlineMillis);
+		}
+	}
+
+	/**
+	 * Returns the deadline of a key or null if the key never expires.
+	 *
+	 * @param key the key
+	 * @return the deadline or null
+	 */
+	public Instant getExpiration(final BBKey key) {
+		Assertion.check().isNotNull(key);
+		//---
+		final Long deadline = expirations.get(key);
+		return deadline == null
+				? null
+				: Instant.ofEpochMilli(deadline);
+	}
+
+	private synchronized BBExpirationWheel getExpirationWheel() {
+		if (expirationWheel == null) {
+			expirationWheel = new BBExpirationWheel(expirations::get, this::evictIfExpired);
+		}
+		return expirationWheel;
+	}
+
+	private boolean isExpired(final BBKey key) {
+		if (expirations.isEmpty()) {
+			return false;
+		}
+		final Long deadline = expirations.get(key);
+		return deadline != null && deadline <= System.currentTimeMillis();
+	}
+
+	/**
+	 * Evicts a key if it has expired (nothing is done if the key has got a new deadline in the meantime).
+	 */
+	private void evictIfExpired(final BBKey key) {
+		if (expirations.isEmpty()) {
+			return;
+		}
+		final Long deadline = expirations.get(key);
+		if (deadline != null && deadline <= System.currentTimeMillis() && expirations.remove(key, deadline)) {
+			index.remove(key);
+			doDelete(key);
+			expiredKeys.increment();
 		}
 	}
 
+	/**
+	 * @return the metrics of the keys
+	 */
+	@Metrics
+	public List<Metric> getKeyMetrics() {
+		return List.of(
+				keyMetric("bbLiveKeys", keys.size()),
+				keyMetric("bbExpiringKeys", expirations.size()),
+				keyMetric("bbExpiredKeys", expiredKeys.sum()),
+				keyMetric("bbMemoryUsage", budget.getMemoryUsage()),
+				keyMetric("bbEvictedRoots", budget.getEvictedRoots()),
+				keyMetric("bbEvictedKeys", budget.getEvictedKeys()),
+				keyMetric("bbOffHeapUsedBytes", offHeapValues == null ? 0 : offHeapValues.getUsedBytes()),
+				keyMetric("bbOffHeapAllocatedBytes", offHeapValues == null ? 0 : offHeapValues.getAllocatedBytes()));
+	}
+
+	private Metric keyMetric(final String name, final long value) {
+		return Metric.builder()
+				.withName(name)
+				.withFeature("blackboard.memory." + getStoreName())
+				.withValue((double) value)
+				.withSuccess()
+				.build();
+	}
+
 	//------------------------------------
 	//--- KV
 	//------------------------------------
 
 	@Override
 	public String get(final BBKey key) {
-		return String.valueOf(values.get(key));
+		access(key);
+		final Object value = values.get(key);
+		return value == null
+				? null
+				: toStringValue(value);
 	}
 
 	@Override
 	public String getString(final BBKey key) {
 		Assertion.check().isNotNull(key);
 		// ---
-		return (String) values.get(key);
+		access(key);
+		return toStringValue(values.get(key));
 	}
 
 	@Override
 	public Integer getInteger(final BBKey key) {
 		Assertion.check().isNotNull(key);
 		// ---
-		return (Integer) values.get(key);
+		access(key);
+		final AtomicInteger counter = (AtomicInteger) values.get(key);
+		return counter == null
+				? null
+				: counter.get();
 	}
 
 	@Override
@@ -129,12 +525,201 @@ public final class MemoryBlackBoardStorePlugin implements BlackBoardStorePlugin
 				.isNotNull(key)
 				.isNotNull(type);
 		// ---
-		//---
-		final Type previousType = keys.put(key, type);
-		if (previousType != null && type != previousType) {
+		registerType(key, type);
+		final Object previousValue = value == null
+				? values.remove(key)
+				: values.put(key, toStoredValue(value));
+		written(key, value, unversioned(previousValue));
+	}
+
+	/**
+	 * Called once a value is written : the previous value is released and the listeners are notified.
+	 */
+	private void written(final BBKey key, final Object value, final Object previousValue) {
+		release(previousValue);
+		if (budget.isEnabled()) {
+			budget.add(BBMemoryBudget.sizeOfValue(value) - BBMemoryBudget.sizeOfValue(previousValue));
+			enforceBudget();
+		}
+		watchers.changed(key);
+	}
+
+	@Override
+	public boolean compareAndSet(final BBKey key, final String expected, final String newValue) {
+		Assertion.check().isNotNull(key);
+		// ---
+		return putIf(key, newValue, (version, value) -> value != null
+				? value.equals(expected)
+				: expected == null);
+	}
+
+	@Override
+	public BBVersionedValue getVersioned(final BBKey key) {
+		Assertion.check().isNotNull(key);
+		// ---
+		access(key);
+		final Object storedValue = values.get(key);
+		if (storedValue == null) {
+			return new BBVersionedValue(null, 0);
+		}
+		if (storedValue instanceof final Versioned versioned) {
+			return new BBVersionedValue(toStringValue(versioned.storedValue()), versioned.version());
+		}
+		//the first versioned read of the value gives it a version, unless it has been written meanwhile
+		final Versioned versioned = new Versioned(storedValue, versionSequence.incrementAndGet());
+		return values.replace(key, storedValue, versioned)
+				? new BBVersionedValue(toStringValue(storedValue), versioned.version())
+				: getVersioned(key);
+	}
+
+	@Override
+	public boolean putIfVersion(final BBKey key, final String value, final long version) {
+		Assertion.check().isNotNull(key);
+		// ---
+		return putIf(key, value, (currentVersion, currentValue) -> currentVersion == version);
+	}
+
+	/**
+	 * Writes a string value with a new version if the condition on the current version and value is true.
+	 * The version is 0 if the key doesn't exist and -1 if the value has no version yet (it matches no expected version).
+	 * The condition and the write are done in a single atomic operation on the value of the key, without any other lock.
+	 */
+	private boolean putIf(final BBKey key, final String value, final BiPredicate<Long, String> condition) {
+		access(key);
+		final Type previousType = keys.get(key);
+		if (previousType != null && previousType != Type.String) {
+			throw new IllegalStateException("the type is already defined" + previousType);
+		}
+		final Object[] previousValue = new Object[1];
+		final boolean[] done = { false };
+		values.compute(key, (k, storedValue) -> {
+			final long currentVersion = storedValue instanceof final Versioned versioned
+					? versioned.version()
+					: storedValue == null ? 0 : -1;
+			final Object currentValue = unversioned(storedValue);
+			if (!condition.test(currentVersion, toStringValue(currentValue))) {
+				return storedValue;
+			}
+			putType(key, Type.String);
+			previousValue[0] = currentValue;
+			done[0] = true;
+			return value == null
+					? null
+					: new Versioned(toStoredValue(value), versionSequence.incrementAndGet());
+		});
+		if (done[0]) {
+			written(key, value, previousValue[0]);
+		}
+		return done[0];
+	}
+
+	/**
+	 * @param storedValue a stored value, which may be versioned
+	 * @return the stored value without its version
+	 */
+	private static Object unversioned(final Object storedValue) {
+		return storedValue instanceof final Versioned versioned
+				? versioned.storedValue()
+				: storedValue;
+	}
+
+	private Object toStoredValue(final Object value) {
+		if (value instanceof final Integer integer) {
+			return new AtomicInteger(integer);
+		}
+		if (offHeapValues != null) {
+			return offHeapValues.allocate((String) value);
+		}
+		return value;
+	}
+
+	private static String toStringValue(final Object storedValue) {
+		if (storedValue == null) {
+			return null;
+		}
+		if (storedValue instanceof final Versioned versioned) {
+			return toStringValue(versioned.storedValue());
+		}
+		if (storedValue instanceof final OffHeapString offHeapString) {
+			return offHeapString.read();
+		}
+		return String.valueOf(storedValue);
+	}
+
+	/**
+	 * Releases a value which has been replaced or removed.
+	 * The compaction of the sparse off heap segments is requested to the background compactor, the writer doesn't wait for it.
+	 */
+	private void release(final Object storedValue) {
+		if (storedValue instanceof final OffHeapString offHeapString
+				&& offHeapValues.release(offHeapString)
+				&& compactionRequested.compareAndSet(false, true)) {
+			compactor.execute(this::compactOffHeapValues);
+		}
+	}
+
+	/**
+	 * Compacts the sparse off heap segments : their live values are copied in a new segment.
+	 * A value replaced meanwhile is kept, its copy is released.
+	 */
+	private void compactOffHeapValues() {
+		//a segment becoming sparse during this compaction requests the next one
+		compactionRequested.set(false);
+		final var sparseSegments = offHeapValues.takeSparseSegments();
+		values.forEach((key, value) -> {
+			if (unversioned(value) instanceof final OffHeapString liveValue && sparseSegments.contains(liveValue.segment())) {
+				final OffHeapString copy = offHeapValues.allocate(liveValue.read());
+				//the copy keeps the version of the value
+				final Object storedCopy = value instanceof final Versioned versioned
+						? new Versioned(copy, versioned.version())
+						: copy;
+				offHeapValues.release(values.replace(key, value, storedCopy) ? liveValue : copy);
+			}
+		});
+	}
+
+	@Override
+	public void putAll(final Map<BBKey, ?> valuesByKey) {
+		Assertion.check().isNotNull(valuesByKey);
+		//--- all the types are checked before the first write
+		valuesByKey.forEach((key, value) -> {
+			access(key);
+			final Type previousType = keys.get(key);
+			if (previousType != null && previousType != typeOf(value)) {
+				throw new IllegalStateException("the type is already defined" + previousType);
+			}
+		});
+		valuesByKey.forEach((key, value) -> doPut(key, typeOf(value), value));
+	}
+
+	private static Type typeOf(final Object value) {
+		return value instanceof Integer
+				? Type.Integer
+				: Type.String;
+	}
+
+	/**
+	 * Registers the type of a key, the type of an existing key can't be changed.
+	 * The check and the registration are done in a single atomic operation.
+	 *
+	 * @param key the key
+	 * @param type the expected type
+	 */
+	private void registerType(final BBKey key, final Type type) {
+		access(key);
+		putType(key, type);
+	}
+
+	private void putType(final BBKey key, final Type type) {
+		final Type previousType = keys.putIfAbsent(key, type);
+		if (previousType == null) {
+			index.add(key);
+			if (budget.isEnabled()) {
+				budget.add(BBMemoryBudget.sizeOfKey(key));
+			}
+		} else if (type != previousType) {
 			throw new IllegalStateException("the type is already defined" + previousType);
 		}
-		values.put(key, value);
 	}
 
 	@Override
@@ -142,15 +727,17 @@ public final class MemoryBlackBoardStorePlugin implements BlackBoardStorePlugin
 		Assertion.check()
 				.isNotNull(key);
 		//---
-		Integer i = getInteger(key);
-		if (i == null) {
-			i = 0;
-		}
-		putInteger(key, i + value);
+		registerType(key, Type.Integer);
+		final AtomicInteger counter = (AtomicInteger) values.get(key);
+		(counter != null ? counter : (AtomicInteger) values.computeIfAbsent(key, k -> new AtomicInteger()))
+				.addAndGet(value);
+		enforceBudget();
+		watchers.changed(key);
 	}
 
 	@Override
 	public Type getType(final BBKey key) {
+		access(key);
 		return keys.get(key);
 	}
 
@@ -162,19 +749,15 @@ public final class MemoryBlackBoardStorePlugin implements BlackBoardStorePlugin
 		Assertion.check()
 				.isNotNull(key);
 		//---
-		BBList list = lists.get(key);
-		if (list != null) {
-			return list;
-		}
-		list = new BBList();
-		lists.put(key, list);
-		return list;
+		registerType(key, Type.List);
+		return lists.computeIfAbsent(key, k -> new BBList());
 	}
 
 	private BBList getListOrEmpty(final BBKey key) {
 		Assertion.check()
 				.isNotNull(key);
 		//---
+		access(key);
 		final BBList list = lists.get(key);
 		return list == null
 				? BBList.EMPTY
@@ -191,12 +774,24 @@ public final class MemoryBlackBoardStorePlugin implements BlackBoardStorePlugin
 	public void listPush(final BBKey key, final String value) {
 		getListOrCreate(key)
 				.push(value);
+		if (budget.isEnabled()) {
+			budget.add(BBMemoryBudget.sizeOfValue(value));
+			enforceBudget();
+		}
+		watchers.changed(key);
 	}
 
 	@Override
 	public String listPop(final BBKey key) {
-		return getListOrEmpty(key)
+		final String value = getListOrEmpty(key)
 				.pop();
+		if (budget.isEnabled()) {
+			budget.add(-BBMemoryBudget.sizeOfValue(value));
+		}
+		if (value != null) {
+			watchers.changed(key);
+		}
+		return value;
 	}
 
 	@Override
@@ -211,6 +806,187 @@ public final class MemoryBlackBoardStorePlugin implements BlackBoardStorePlugin
 				.get(idx);
 	}
 
+	@Override
+	public void listPushLeft(final BBKey key, final String value) {
+		getListOrCreate(key)
+				.pushLeft(value);
+		if (budget.isEnabled()) {
+			budget.add(BBMemoryBudget.sizeOfValue(value));
+			enforceBudget();
+		}
+		watchers.changed(key);
+	}
+
+	@Override
+	public String listPopLeft(final BBKey key) {
+		final String value = getListOrEmpty(key)
+				.popLeft();
+		if (budget.isEnabled()) {
+			budget.add(-BBMemoryBudget.sizeOfValue(value));
+		}
+		if (value != null) {
+			watchers.changed(key);
+		}
+		return value;
+	}
+
+	@Override
+	public List<String> listRange(final BBKey key, final int from, final int to) {
+		return getListOrEmpty(key)
+				.range(from, to);
+	}
+
+	@Override
+	public void listTrim(final BBKey key, final int from, final int to) {
+		final List<String> removed = getListOrEmpty(key)
+				.trim(from, to);
+		if (budget.isEnabled()) {
+			budget.add(-removed.stream().mapToLong(BBMemoryBudget::sizeOfValue).sum());
+		}
+		if (!removed.isEmpty()) {
+			watchers.changed(key);
+		}
+	}
+
+	//------------------------------------
+	//- Snapshot                         -
+	//------------------------------------
+	/**
+	 * Writes a binary snapshot of the keys matching a pattern (types, deadlines, values and lists).
+	 * The keys are written one after the other, the snapshot is never built in memory.
+	 * Each key is consistent, the keys written concurrently may or may not be included.
+	 *
+	 * The stream is flushed but not closed.
+	 *
+	 * @param keyPattern the pattern of the keys
+	 * @param outputStream the stream
+	 * @return the number of keys written
+	 * @throws IOException if the snapshot can't be written
+	 */
+	public long snapshot(final BBKeyPattern keyPattern, final OutputStream outputStream) throws IOException {
+		Assertion.check()
+				.isNotNull(keyPattern)
+				.isNotNull(outputStream);
+		//---
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream, 64 * 1024));
+		out.writeInt(SNAPSHOT_MAGIC);
+		long count = 0;
+		for (final BBKey key : keys(keyPattern)) {
+			final Type type = keys.get(key);
+			if (type == null) {
+				continue; // deleted in the meantime
+			}
+			out.writeByte(type.ordinal());
+			writeString(out, key.key());
+			final Long deadline = expirations.get(key);
+			out.writeLong(deadline == null ? 0 : deadline);
+			switch (type) {
+				case String -> writeString(out, toStringValue(values.get(key)));
+				case Integer -> {
+					final AtomicInteger counter = (AtomicInteger) values.get(key);
+					out.writeBoolean(counter != null);
+					if (counter != null) {
+						out.writeInt(counter.get());
+					}
+				}
+				case List -> {
+					final List<String> list = getListOrEmpty(key).toList();
+					out.writeInt(list.size());
+					for (final String value : list) {
+						writeString(out, value);
+					}
+				}
+				default -> throw new IllegalStateException("unknown type " + type);
+			}
+			count++;
+		}
+		out.writeByte(SNAPSHOT_END);
+		out.flush();
+		return count;
+	}
+
+	/**
+	 * Restores a snapshot written by snapshot.
+	 * The keys are read one after the other.
+	 * A restored key replaces the existing key (its type, its value or its list), the other keys are kept.
+	 * The keys which have expired since the snapshot are not restored.
+	 *
+	 * The stream is not closed.
+	 *
+	 * @param inputStream the stream
+	 * @return the number of keys restored
+	 * @throws IOException if the snapshot can't be read
+	 */
+	public long restore(final InputStream inputStream) throws IOException {
+		Assertion.check().isNotNull(inputStream);
+		//---
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream, 64 * 1024));
+		if (in.readInt() != SNAPSHOT_MAGIC) {
+			throw new IllegalStateException("the stream is not a blackboard snapshot");
+		}
+		final Type[] types = Type.values();
+		long count = 0;
+		int typeIndex;
+		while ((typeIndex = in.readUnsignedByte()) != SNAPSHOT_END) {
+			final Type type = types[typeIndex];
+			final BBKey key = BBKey.of(readString(in));
+			if (keys.containsKey(key)) {
+				index.remove(key);
+				doDelete(key);
+			}
+			final long deadline = in.readLong();
+			switch (type) {
+				case String -> doPut(key, Type.String, readString(in));
+				case Integer -> doPut(key, Type.Integer, in.readBoolean() ? in.readInt() : null);
+				case List -> {
+					final BBList list = getListOrCreate(key);
+					final int size = in.readInt();
+					for (int i = 0; i < size; i++) {
+						final String value = readString(in);
+						list.push(value);
+						if (budget.isEnabled()) {
+							budget.add(BBMemoryBudget.sizeOfValue(value));
+						}
+					}
+					watchers.changed(key);
+				}
+				default -> throw new IllegalStateException("unknown type " + type);
+			}
+			if (deadline > 0) {
+				if (deadline <= System.currentTimeMillis()) {
+					index.remove(key);
+					doDelete(key);
+					continue;
+				}
+				expirations.put(key, deadline);
+				getExpirationWheel().schedule(key, deadline);
+			}
+			enforceBudget();
+			count++;
+		}
+		return count;
+	}
+
+	private static void writeString(final DataOutputStream out, final String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+		} else {
+			final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static String readString(final DataInputStream in) throws IOException {
+		final int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		final byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
 	@Override
 	public String getStoreName() {
 		return storeNameOpt.orElse(BlackBoardManager.MAIN_STORE_NAME);
@@ -0,0 +1,165 @@
+package io.vertigo.ai.plugins.bb.redis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import io.vertigo.ai.bb.BBKey;
+import io.vertigo.ai.bb.BBKeyPattern;
+import io.vertigo.ai.bb.BlackBoard.Type;
+import io.vertigo.ai.impl.bb.AsyncBlackBoardStore;
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * The asynchronous api of a redis store : each operation is a single command (or script) sent through the shared pipeline.
+ * The writes invalidate the near cache of the plugin once they are done, the reads always go to redis.
+ */
+final class RedisAsyncBlackBoardStore implements AsyncBlackBoardStore {
+	private final RedisBlackBoardStorePlugin redisBlackBoardStorePlugin;
+	private final RedisBlackBoardKeys keys;
+	private final RedisBlackBoardPipeline pipeline;
+
+	RedisAsyncBlackBoardStore(final RedisBlackBoardStorePlugin redisBlackBoardStorePlugin, final RedisBlackBoardPipeline pipeline) {
+		Assertion.check()
+				.isNotNull(redisBlackBoardStorePlugin)
+				.isNotNull(pipeline);
+		//---
+		this.redisBlackBoardStorePlugin = redisBlackBoardStorePlugin;
+		keys = redisBlackBoardStorePlugin.getKeys();
+		this.pipeline = pipeline;
+	}
+
+	@Override
+	public CompletionStage<Boolean> exists(final BBKey key) {
+		return pipeline.send(commands -> commands.exists(keys.key(key)));
+	}
+
+	@Override
+	public CompletionStage<Void> delete(final BBKeyPattern keyPattern) {
+		if (keyPattern.keyPattern().endsWith("*")) {
+			// the keys are scanned before being deleted : the scan can't be pipelined
+			return pipeline.sendTask(() -> {
+				redisBlackBoardStorePlugin.delete(keyPattern);
+				return null;
+			});
+		}
+		final String[] deletedKeys = keys.scriptKeys(BBKey.of(keyPattern.keyPattern())).toArray(String[]::new);
+		return pipeline.send(commands -> commands.del(deletedKeys))
+				.whenComplete((result, error) -> redisBlackBoardStorePlugin.invalidateNearCache(keyPattern))
+				.thenApply(result -> null);
+	}
+
+	@Override
+	public CompletionStage<Type> getType(final BBKey key) {
+		return pipeline.send(commands -> commands.get(keys.metaKey(key)))
+				.thenApply(storedMeta -> storedMeta != null ? RedisBlackBoardScript.typeOf(storedMeta) : null);
+	}
+
+	@Override
+	public CompletionStage<List<String>> getAll(final List<BBKey> bbKeys) {
+		if (bbKeys.isEmpty()) {
+			return CompletableFuture.completedFuture(List.of());
+		}
+		if (keys.isHashTags()) {
+			// a MGET can't span many slots
+			final List<CompletableFuture<String>> values = bbKeys.stream()
+					.map(key -> getString(key).toCompletableFuture())
+					.toList();
+			return CompletableFuture.allOf(values.toArray(CompletableFuture[]::new))
+					.thenApply(done -> values.stream().map(CompletableFuture::join).toList());
+		}
+		final String[] stringKeys = bbKeys.stream()
+				.map(keys::key)
+				.toArray(String[]::new);
+		return pipeline.send(commands -> commands.mget(stringKeys));
+	}
+
+	@Override
+	public CompletionStage<Void> putAll(final Map<BBKey, ?> values) {
+		if (values.isEmpty()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		final List<CompletableFuture<Void>> writes = new ArrayList<>();
+		redisBlackBoardStorePlugin.putAllScriptArgs(values)
+				.forEach((scriptKeys, args) -> writes.add(write(RedisBlackBoardScript.PUT_ALL, scriptKeys, args, writtenKeys(scriptKeys)).toCompletableFuture()));
+		return CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new));
+	}
+
+	@Override
+	public CompletionStage<String> getString(final BBKey key) {
+		return pipeline.send(commands -> commands.get(keys.key(key)));
+	}
+
+	@Override
+	public CompletionStage<Void> putString(final BBKey key, final String value) {
+		return write(RedisBlackBoardScript.PUT, key, Type.String, value);
+	}
+
+	@Override
+	public CompletionStage<Integer> getInteger(final BBKey key) {
+		return getString(key)
+				.thenApply(value -> value != null ? Integer.parseInt(value) : null);
+	}
+
+	@Override
+	public CompletionStage<Void> putInteger(final BBKey key, final Integer value) {
+		return write(RedisBlackBoardScript.PUT, key, Type.Integer, value != null ? String.valueOf(value) : null);
+	}
+
+	@Override
+	public CompletionStage<Void> incrBy(final BBKey key, final int value) {
+		return write(RedisBlackBoardScript.INCR_BY, key, Type.Integer, String.valueOf(value));
+	}
+
+	@Override
+	public CompletionStage<Long> listSize(final BBKey key) {
+		return pipeline.send(commands -> commands.llen(keys.key(key)));
+	}
+
+	@Override
+	public CompletionStage<Void> listPush(final BBKey key, final String value) {
+		return write(RedisBlackBoardScript.LIST_PUSH, key, Type.List, value);
+	}
+
+	@Override
+	public CompletionStage<String> listPop(final BBKey key) {
+		return pipeline.send(commands -> commands.rpop(keys.key(key)));
+	}
+
+	@Override
+	public CompletionStage<List<String>> listRange(final BBKey key, final int from, final int to) {
+		return pipeline.send(commands -> commands.lrange(keys.key(key), from, to));
+	}
+
+	/**
+	 * Checks the type and writes the value in a single atomic script.
+	 * A null value put deletes the key.
+	 */
+	private CompletionStage<Void> write(final RedisBlackBoardScript script, final BBKey key, final Type type, final String value) {
+		if (value == null && script == RedisBlackBoardScript.PUT) {
+			return delete(BBKeyPattern.of(key.key()));
+		}
+		return write(script, keys.scriptKeys(key), List.of(type.name(), value), List.of(key.key()));
+	}
+
+	/**
+	 * @param scriptKeys the keys of a PUT_ALL script
+	 * @return the written keys of the blackboard
+	 */
+	private List<String> writtenKeys(final List<String> scriptKeys) {
+		return scriptKeys.stream()
+				.map(keys::toBBKey)
+				.filter(Objects::nonNull) // the metadata
+				.map(BBKey::key)
+				.toList();
+	}
+
+	private CompletionStage<Void> write(final RedisBlackBoardScript script, final List<String> keys, final List<String> args, final List<String> writtenKeys) {
+		return pipeline.send(commands -> script.queue(commands, keys, args))
+				.whenComplete((result, error) -> redisBlackBoardStorePlugin.invalidateNearCache(writtenKeys))
+				.thenApply(result -> null);
+	}
+}
@@ -0,0 +1,350 @@
+package io.vertigo.ai.plugins.bb.redis;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import io.vertigo.ai.bb.BBKey;
+import io.vertigo.ai.bb.BBKeyPattern;
+import io.vertigo.ai.bb.BBVersionedValue;
+import io.vertigo.ai.bb.BBWatch;
+import io.vertigo.ai.bb.BlackBoard.Type;
+import io.vertigo.ai.impl.bb.BlackBoardStorePlugin;
+import io.vertigo.core.lang.Assertion;
+import redis.clients.jedis.AbstractTransaction;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+/**
+ * A unit of work on a redis blackboard.
+ *
+ * The writes are deferred and queued in a MULTI/EXEC transaction,
+ * which is sent in one round trip when the unit of work is flushed.
+ *
+ * The unit of work is not atomic :
+ *  - the pending commands are flushed in their own transaction before a read of a dirty key, keys, delete, expire and the conditional writes
+ *  - redis doesn't roll back a transaction : a failed command (a wrong type...) doesn't cancel the other ones, its error is raised by the flush
+ * So a unit of work which fails may have written a part of its values.
+ *
+ * The reads see the writes of the unit of work :
+ *  - the values and the types written in the unit of work are read locally
+ *  - a read on a key with a pending command whose result is unknown (incr, list...) flushes the pending commands first
+ *
+ * This object is not thread safe, it's used by a single unit of work.
+ */
+final class RedisBlackBoardBatch implements BlackBoardStorePlugin {
+	private final RedisBlackBoardStorePlugin redisBlackBoardStorePlugin;
+	private final UnifiedJedis jedis;
+
+	//types known in this unit of work (read or written)
+	private final Map<String, Type> types = new HashMap<>();
+	//values written in this unit of work
+	private final Map<String, String> values = new HashMap<>();
+	//keys with pending commands
+	private final Set<String> pendingKeys = new HashSet<>();
+	//keys with pending commands whose result is not known locally
+	private final Set<String> dirtyKeys = new HashSet<>();
+	private AbstractTransaction tx;
+
+	RedisBlackBoardBatch(final RedisBlackBoardStorePlugin redisBlackBoardStorePlugin, final UnifiedJedis jedis) {
+		Assertion.check()
+				.isNotNull(redisBlackBoardStorePlugin)
+				.isNotNull(jedis);
+		//---
+		this.redisBlackBoardStorePlugin = redisBlackBoardStorePlugin;
+		this.jedis = jedis;
+	}
+
+	//------------------------------------
+	//--- Unit of work
+	//------------------------------------
+	private AbstractTransaction tx() {
+		if (tx == null) {
+			tx = jedis.multi();
+		}
+		return tx;
+	}
+
+	/**
+	 * Sends all the pending commands in a single round trip.
+	 * The first error returned by a command is raised once all the commands are executed.
+	 */
+	void flush() {
+		if (tx != null) {
+			final List<Object> results;
+			try {
+				results = tx.exec();
+			} catch (final JedisDataException e) {
+				throw RedisBlackBoardScript.translate(e);
+			} finally {
+				tx.close();
+				tx = null;
+				redisBlackBoardStorePlugin.invalidateNearCache(pendingKeys);
+				pendingKeys.clear();
+				dirtyKeys.clear();
+			}
+			for (final Object result : results) {
+				if (result instanceof final JedisDataException e) {
+					throw RedisBlackBoardScript.translate(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Discards the pending commands if the unit of work has not been flushed.
+	 */
+	void discard() {
+		if (tx != null) {
+			tx.close(); // a transaction closed before exec is discarded
+			tx = null;
+			pendingKeys.clear();
+			dirtyKeys.clear();
+		}
+	}
+
+	private String redisKey(final BBKey key) {
+		return redisBlackBoardStorePlugin.getKeys().key(key);
+	}
+
+	private void flushIfDirty(final BBKey key) {
+		if (dirtyKeys.contains(key.key())) {
+			flush();
+		}
+	}
+
+	//------------------------------------
+	//--- Keys
+	//------------------------------------
+	@Override
+	public boolean exists(final BBKey key) {
+		if (values.containsKey(key.key())) {
+			return values.get(key.key()) != null; // a null value has deleted the key
+		}
+		flushIfDirty(key);
+		return jedis.exists(redisKey(key));
+	}
+
+	@Override
+	public Set<BBKey> keys(final BBKeyPattern keyPattern) {
+		flush();
+		return redisBlackBoardStorePlugin.keys(keyPattern);
+	}
+
+	@Override
+	public void delete(final BBKeyPattern keyPattern) {
+		flush();
+		types.clear();
+		values.clear();
+		redisBlackBoardStorePlugin.delete(keyPattern);
+	}
+
+	@Override
+	public void expire(final BBKeyPattern keyPattern, final Duration ttl) {
+		flush();
+		redisBlackBoardStorePlugin.expire(keyPattern, ttl);
+	}
+
+	@Override
+	public BBWatch watch(final BBKeyPattern keyPattern, final Consumer<BBKey> listener) {
+		return redisBlackBoardStorePlugin.watch(keyPattern, listener);
+	}
+
+	@Override
+	public Type getType(final BBKey key) {
+		final Type knownType = types.get(key.key());
+		if (knownType != null) {
+			return knownType;
+		}
+		final Type type = redisBlackBoardStorePlugin.getType(key);
+		if (type != null) {
+			types.put(key.key(), type);
+		}
+		return type;
+	}
+
+	//------------------------------------
+	//--- KV
+	//------------------------------------
+	@Override
+	public String get(final BBKey key) {
+		if (values.containsKey(key.key())) {
+			return values.get(key.key());
+		}
+		flushIfDirty(key);
+		return redisBlackBoardStorePlugin.get(key);
+	}
+
+	@Override
+	public List<String> getAll(final List<BBKey> keys) {
+		if (keys.stream().anyMatch(key -> dirtyKeys.contains(key.key()))) {
+			flush();
+		}
+		final List<BBKey> missingKeys = keys.stream()
+				.filter(key -> !values.containsKey(key.key()))
+				.toList();
+		final Iterator<String> missingValues = redisBlackBoardStorePlugin.getAll(missingKeys).iterator();
+		final List<String> result = new ArrayList<>(keys.size());
+		for (final BBKey key : keys) {
+			result.add(values.containsKey(key.key())
+					? values.get(key.key())
+					: missingValues.next());
+		}
+		return result;
+	}
+
+	@Override
+	public String getString(final BBKey key) {
+		return get(key);
+	}
+
+	@Override
+	public void putString(final BBKey key, final String value) {
+		doPut(key, Type.String, value);
+	}
+
+	/**
+	 * The conditional writes can't be deferred : the pending commands are sent first.
+	 */
+	@Override
+	public boolean compareAndSet(final BBKey key, final String expected, final String newValue) {
+		flush();
+		return conditionalPut(key, newValue, redisBlackBoardStorePlugin.compareAndSet(key, expected, newValue));
+	}
+
+	@Override
+	public BBVersionedValue getVersioned(final BBKey key) {
+		flush();
+		return redisBlackBoardStorePlugin.getVersioned(key);
+	}
+
+	@Override
+	public boolean putIfVersion(final BBKey key, final String value, final long version) {
+		flush();
+		return conditionalPut(key, value, redisBlackBoardStorePlugin.putIfVersion(key, value, version));
+	}
+
+	private boolean conditionalPut(final BBKey key, final String value, final boolean written) {
+		if (written) {
+			types.put(key.key(), Type.String);
+			values.put(key.key(), value);
+		} else {
+			values.remove(key.key());
+		}
+		return written;
+	}
+
+	@Override
+	public Integer getInteger(final BBKey key) {
+		final var value = get(key);
+		return value != null ? Integer.parseInt(value) : null;
+	}
+
+	@Override
+	public void putInteger(final BBKey key, final Integer value) {
+		doPut(key, Type.Integer, value != null ? String.valueOf(value) : null);
+	}
+
+	private void doPut(final BBKey key, final Type type, final String value) {
+		queue(RedisBlackBoardScript.PUT, key, type, value);
+		values.put(key.key(), value);
+		dirtyKeys.remove(key.key());
+	}
+
+	@Override
+	public void incrBy(final BBKey key, final int value) {
+		queue(RedisBlackBoardScript.INCR_BY, key, Type.Integer, String.valueOf(value));
+		values.remove(key.key());
+		dirtyKeys.add(key.key());
+	}
+
+	/**
+	 * Queues a write.
+	 * The type is checked immediately (the errors are raised in the unit of work) and again atomically by the script.
+	 * A null value put deletes the key.
+	 */
+	private void queue(final RedisBlackBoardScript script, final BBKey key, final Type type, final String value) {
+		if (value == null && script == RedisBlackBoardScript.PUT) {
+			tx().del(redisBlackBoardStorePlugin.getKeys().scriptKeys(key).toArray(String[]::new));
+			types.remove(key.key());
+			pendingKeys.add(key.key());
+			return;
+		}
+		final Type storedType = getType(key);
+		if (storedType != null && storedType != type) {
+			throw new IllegalStateException("the type of the key " + storedType + " is not the one expected " + type);
+		}
+		script.queueInTransaction(tx(), redisBlackBoardStorePlugin.getKeys().scriptKeys(key), List.of(type.name(), value));
+		types.put(key.key(), type);
+		pendingKeys.add(key.key());
+	}
+
+	//------------------------------------
+	//- List
+	//------------------------------------
+	@Override
+	public long listSize(final BBKey key) {
+		flushIfDirty(key);
+		return jedis.llen(redisKey(key));
+	}
+
+	@Override
+	public void listPush(final BBKey key, final String value) {
+		queue(RedisBlackBoardScript.LIST_PUSH, key, Type.List, value);
+		dirtyKeys.add(key.key());
+	}
+
+	@Override
+	public String listPop(final BBKey key) {
+		flushIfDirty(key);
+		return jedis.rpop(redisKey(key));
+	}
+
+	@Override
+	public String listPeek(final BBKey key) {
+		flushIfDirty(key);
+		return jedis.lindex(redisKey(key), -1); // last is 0
+	}
+
+	@Override
+	public String listGet(final BBKey key, final int idx) {
+		flushIfDirty(key);
+		return jedis.lindex(redisKey(key), idx);
+	}
+
+	@Override
+	public void listPushLeft(final BBKey key, final String value) {
+		queue(RedisBlackBoardScript.LIST_PUSH_LEFT, key, Type.List, value);
+		dirtyKeys.add(key.key());
+	}
+
+	@Override
+	public String listPopLeft(final BBKey key) {
+		flushIfDirty(key);
+		return jedis.lpop(redisKey(key));
+	}
+
+	@Override
+	public List<String> listRange(final BBKey key, final int from, final int to) {
+		flushIfDirty(key);
+		return jedis.lrange(redisKey(key), from, to);
+	}
+
+	@Override
+	public void listTrim(final BBKey key, final int from, final int to) {
+		tx().ltrim(redisKey(key), from, to);
+		pendingKeys.add(key.key());
+		dirtyKeys.add(key.key());
+	}
+
+	@Override
+	public String getStoreName() {
+		return redisBlackBoardStorePlugin.getStoreName();
+	}
+}
@@ -0,0 +1,196 @@
+package io.vertigo.ai.plugins.bb.redis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.vertigo.ai.bb.BBKey;
+import io.vertigo.ai.bb.BBKeyPattern;
+
+/**
+ * The layout of the keys of a blackboard in redis.
+ *
+ * The type and the version of a key are stored in a metadata key, next to the key, with the same ttl : the metadata of an expired key disappears with it.
+ * There is no global key : each key only comes with its metadata.
+ *
+ * By default a key is stored as is and its metadata is prefixed by # (#/s1/name).
+ *
+ * With the hash tags, the root of a key (its first segment) is used as hash tag : /s1/name is stored in {/s1}/name and its metadata in {/s1}#/name.
+ * So all the data of a session is in a single slot of a redis cluster :
+ * the scripts on the keys of a root and the scans of a root run on a single shard.
+ * Only the patterns spanning many roots (/* ...) have to scan all the shards.
+ */
+final class RedisBlackBoardKeys {
+	private final boolean hashTags;
+
+	RedisBlackBoardKeys(final boolean hashTags) {
+		this.hashTags = hashTags;
+	}
+
+	boolean isHashTags() {
+		return hashTags;
+	}
+
+	/**
+	 * @param key the key of the blackboard
+	 * @return the key in redis
+	 */
+	String key(final BBKey key) {
+		return key(key.key());
+	}
+
+	private String key(final String key) {
+		if (!hashTags) {
+			return key;
+		}
+		final String root = rootOf(key);
+		return '{' + root + '}' + key.substring(root.length());
+	}
+
+	/**
+	 * @param redisKey the key in redis
+	 * @return the key of the blackboard, or null if the key is an internal key (metadata...)
+	 */
+	BBKey toBBKey(final String redisKey) {
+		if (!hashTags) {
+			return redisKey.startsWith("/")
+					? BBKey.of(redisKey)
+					: null;
+		}
+		final int end = redisKey.indexOf('}');
+		if (!redisKey.startsWith("{") || end < 0 || redisKey.startsWith("#", end + 1)) {
+			return null;
+		}
+		return BBKey.of(redisKey.substring(1, end) + redisKey.substring(end + 1));
+	}
+
+	/**
+	 * @param redisKey the key in redis
+	 * @return the key of the blackboard described by a metadata, or null if the key is not a metadata
+	 */
+	BBKey metaToBBKey(final String redisKey) {
+		if (!hashTags) {
+			return redisKey.startsWith("#/")
+					? BBKey.of(redisKey.substring(1))
+					: null;
+		}
+		final int end = redisKey.indexOf('}');
+		if (!redisKey.startsWith("{") || end < 0 || !redisKey.startsWith("#", end + 1)) {
+			return null;
+		}
+		return BBKey.of(redisKey.substring(1, end) + redisKey.substring(end + 2));
+	}
+
+	/**
+	 * @param key the key
+	 * @return the metadata of the key
+	 */
+	String metaKey(final BBKey key) {
+		if (!hashTags) {
+			return '#' + key.key();
+		}
+		final String root = rootOf(key.key());
+		return '{' + root + "}#" + key.key().substring(root.length());
+	}
+
+	/**
+	 * @param key the written key
+	 * @return the keys of a script : the key and its metadata
+	 */
+	List<String> scriptKeys(final BBKey key) {
+		return List.of(key(key), metaKey(key));
+	}
+
+	/**
+	 * @param batch some keys of a single slot
+	 * @return the keys in redis of the batch : each key followed by its metadata
+	 */
+	List<String> keysWithMeta(final List<BBKey> batch) {
+		final List<String> result = new ArrayList<>(batch.size() * 2);
+		batch.forEach(key -> {
+			result.add(key(key));
+			result.add(metaKey(key));
+		});
+		return result;
+	}
+
+	/**
+	 * The keys of a same slot can be used together in a script.
+	 *
+	 * @param key the key
+	 * @return the slot of the key (its root with the hash tags)
+	 */
+	String slot(final BBKey key) {
+		return hashTags
+				? rootOf(key.key())
+				: "";
+	}
+
+	/**
+	 * Returns if all the keys matching the pattern are in a single slot (a single root with the hash tags).
+	 *
+	 * @param keyPattern the pattern
+	 * @return if the keys are in a single slot
+	 */
+	boolean isSingleSlot(final BBKeyPattern keyPattern) {
+		return hashTags && rootOf(keyPattern) != null;
+	}
+
+	private static String rootOf(final BBKeyPattern keyPattern) {
+		final String keyPatternString = keyPattern.keyPattern();
+		if (!keyPatternString.endsWith("*")) {
+			return rootOf(keyPatternString);
+		}
+		final String prefix = keyPatternString.substring(0, keyPatternString.length() - 1);
+		final int end = prefix.indexOf('/', 1);
+		//otherwise the prefix is a part of a root : /s* matches /s1/... and /s2/...
+		return end > 0
+				? prefix.substring(0, end)
+				: null;
+	}
+
+	/**
+	 * @param keyPattern the pattern of the blackboard
+	 * @return the pattern in redis (the patterns spanning many roots match all the keys of these roots, including the internal keys)
+	 */
+	String pattern(final BBKeyPattern keyPattern) {
+		final String keyPatternString = keyPattern.keyPattern();
+		if (!hashTags) {
+			return keyPatternString;
+		}
+		if (!keyPatternString.endsWith("*")) {
+			return key(keyPatternString);
+		}
+		final String prefix = keyPatternString.substring(0, keyPatternString.length() - 1);
+		return prefix.indexOf('/', 1) > 0
+				? key(prefix) + '*'
+				: '{' + prefix + '*';
+	}
+
+	/**
+	 * Every key comes with its metadata, which outlives an emptied list : the metadata matching a pattern tell all its keys.
+	 *
+	 * @param keyPattern the pattern of the blackboard
+	 * @return the pattern in redis of the metadata (the patterns spanning many roots match all the keys of these roots, including the data)
+	 */
+	String metaPattern(final BBKeyPattern keyPattern) {
+		final String keyPatternString = keyPattern.keyPattern();
+		if (!hashTags) {
+			return '#' + keyPatternString;
+		}
+		if (!keyPatternString.endsWith("*")) {
+			return metaKey(BBKey.of(keyPatternString));
+		}
+		final String prefix = keyPatternString.substring(0, keyPatternString.length() - 1);
+		final int end = prefix.indexOf('/', 1);
+		return end > 0
+				? '{' + prefix.substring(0, end) + "}#" + prefix.substring(end) + '*'
+				: '{' + prefix + '*';
+	}
+
+	private static String rootOf(final String key) {
+		final int end = key.indexOf('/', 1);
+		return end > 0
+				? key.substring(0, end)
+				: key;
+	}
+}
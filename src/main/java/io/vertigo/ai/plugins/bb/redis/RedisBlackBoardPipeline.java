@@ -0,0 +1,185 @@
+package io.vertigo.ai.plugins.bb.redis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import io.vertigo.connectors.redis.RedisConnector;
+import io.vertigo.core.lang.Assertion;
+import redis.clients.jedis.AbstractPipeline;
+import redis.clients.jedis.PipeliningBase;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+/**
+ * Sends the asynchronous commands of all the sessions through a single pipeline.
+ *
+ * The commands are queued by the callers, which never wait.
+ * A single thread takes all the queued commands (up to MAX_PIPELINE_SIZE), sends them in one pipeline and completes their stages.
+ * So the commands are sent in the order they were queued, and the number of round trips doesn't depend on the number of sessions.
+ *
+ * The scripts are loaded once (and again after a connection loss or an unknown script error), the pipeline only sends their sha.
+ * A script rejected as unknown (the scripts have been flushed) fails, it's not sent again after the next commands.
+ * The tasks which can't be pipelined (a scan...) run on a dedicated thread, once the commands queued before them are done.
+ *
+ * The stages are completed by the thread of the pipeline : the continuations must not block.
+ */
+final class RedisBlackBoardPipeline {
+	private static final int MAX_PIPELINE_SIZE = 1000;
+
+	private static final class Command<T> {
+		private final Function<PipeliningBase, Response<T>> request;
+		private final CompletableFuture<T> future = new CompletableFuture<>();
+		private Response<T> response;
+
+		private Command(final Function<PipeliningBase, Response<T>> request) {
+			this.request = request;
+		}
+
+		private void queue(final PipeliningBase pipeline) {
+			response = request.apply(pipeline);
+		}
+
+		private void complete() {
+			try {
+				future.complete(response != null ? response.get() : null);
+			} catch (final JedisDataException e) {
+				future.completeExceptionally(RedisBlackBoardScript.translate(e));
+			}
+		}
+
+		private boolean isUnknownScript() {
+			try {
+				if (response != null) {
+					response.get();
+				}
+				return false;
+			} catch (final JedisNoScriptException e) {
+				return true;
+			} catch (final JedisDataException e) {
+				return false;
+			}
+		}
+	}
+
+	private final RedisConnector redisConnector;
+	private final BlockingQueue<Command<?>> commands = new LinkedBlockingQueue<>();
+	private final Thread thread;
+	private final ExecutorService taskExecutor;
+	private volatile boolean running = true;
+	//only read and written by the thread of the pipeline
+	private boolean scriptsLoaded;
+
+	RedisBlackBoardPipeline(final RedisConnector redisConnector, final String storeName) {
+		Assertion.check()
+				.isNotNull(redisConnector)
+				.isNotBlank(storeName);
+		//---
+		this.redisConnector = redisConnector;
+		thread = new Thread(this::run, "bb-redis-pipeline-" + storeName);
+		thread.setDaemon(true);
+		thread.start();
+		taskExecutor = Executors.newSingleThreadExecutor(runnable -> {
+			final Thread taskThread = new Thread(runnable, "bb-redis-tasks-" + storeName);
+			taskThread.setDaemon(true);
+			return taskThread;
+		});
+	}
+
+	/**
+	 * Queues a command, it will be sent with the next pipeline.
+	 *
+	 * @param request queues the command in the pipeline
+	 * @return the result of the command
+	 */
+	<T> CompletionStage<T> send(final Function<PipeliningBase, Response<T>> request) {
+		Assertion.check().isNotNull(request);
+		//---
+		final Command<T> command = new Command<>(request);
+		commands.add(command);
+		if (!running) {
+			//the pipeline may have stopped before the command was queued
+			failPendingCommands();
+		}
+		return command.future;
+	}
+
+	/**
+	 * Runs a task which can't be pipelined, once the commands queued before it are done.
+	 * The tasks are run one by one by a dedicated thread, they may block.
+	 *
+	 * @param task the task
+	 * @return the result of the task
+	 */
+	<T> CompletionStage<T> sendTask(final Supplier<T> task) {
+		Assertion.check().isNotNull(task);
+		//---
+		//a command without request is completed once the commands sent before it in the pipeline are done
+		return send(commands -> null)
+				.handleAsync((done, error) -> task.get(), taskExecutor);
+	}
+
+	void stop() {
+		running = false;
+		thread.interrupt();
+		taskExecutor.shutdown();
+	}
+
+	private void run() {
+		final List<Command<?>> pipelineCommands = new ArrayList<>();
+		while (running) {
+			try {
+				pipelineCommands.add(commands.take());
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			commands.drainTo(pipelineCommands, MAX_PIPELINE_SIZE - 1);
+			execute(pipelineCommands);
+			pipelineCommands.clear();
+		}
+		failPendingCommands();
+	}
+
+	private void execute(final List<Command<?>> pipelineCommands) {
+		try {
+			if (!scriptsLoaded) {
+				RedisBlackBoardScript.loadAll(redisConnector.getClient());
+				scriptsLoaded = true;
+			}
+			//the pipeline holds a single connection of the pool until it's closed
+			try (final AbstractPipeline pipeline = redisConnector.getClient().pipelined()) {
+				for (final Command<?> command : pipelineCommands) {
+					command.queue(pipeline);
+				}
+				pipeline.sync();
+			}
+		} catch (final RuntimeException e) {
+			//connection lost... the result of each command is unknown, and redis may have been restarted without the scripts
+			scriptsLoaded = false;
+			pipelineCommands.forEach(command -> command.future.completeExceptionally(e));
+			return;
+		}
+		//the scripts have been flushed : they are loaded again by the next pipeline.
+		//the scripts which were not executed fail, resending them after the next commands would break the order
+		if (pipelineCommands.stream().anyMatch(Command::isUnknownScript)) {
+			scriptsLoaded = false;
+		}
+		pipelineCommands.forEach(Command::complete);
+	}
+
+	private void failPendingCommands() {
+		Command<?> command;
+		while ((command = commands.poll()) != null) {
+			command.future.completeExceptionally(new IllegalStateException("the redis blackboard is stopped"));
+		}
+	}
+}
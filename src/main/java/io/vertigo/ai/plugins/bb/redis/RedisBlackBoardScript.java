@@ -0,0 +1,303 @@
+package io.vertigo.ai.plugins.bb.redis;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import io.vertigo.ai.bb.BlackBoard.Type;
+import io.vertigo.core.lang.Assertion;
+import io.vertigo.core.lang.WrappedException;
+import redis.clients.jedis.AbstractTransaction;
+import redis.clients.jedis.PipeliningBase;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+/**
+ * Lua scripts executed by redis.
+ * A script is executed atomically in a single round trip.
+ *
+ * The scripts are called by their sha (EVALSHA).
+ * If redis doesn't know the script yet (first call, restart...), the script is sent and cached by redis (EVAL).
+ * In a pipeline the scripts are loaded first (SCRIPT LOAD), then only their sha is sent.
+ *
+ * The write scripts check the type of the key before writing.
+ * The type of a key is stored in its own metadata key, which has the same ttl as the key : it expires (or is deleted) with the key.
+ * The type of a key which doesn't exist anymore (an emptied list) is ignored and replaced.
+ *
+ * The versions are lazy : only the keys used through the versioned api (getVersioned, compareAndSet, putIfVersion) have a version,
+ * stored after their type in their metadata (String:version). Any other write drops the version, a new one is given on the next versioned read.
+ * A new version is the time of redis in micros (or the previous version + 1) : a key deleted then written again never gets back a previous version.
+ *  - KEYS[1] : the key
+ *  - KEYS[2] : the metadata of the key
+ *  - ARGV[1] : the expected type
+ *  - ARGV[2] : the value
+ */
+final class RedisBlackBoardScript {
+	private static final String TYPE_ERROR = "BBTYPE";
+	//all the scripts, loaded at once before being called in a pipeline
+	private static final List<RedisBlackBoardScript> SCRIPTS = new ArrayList<>();
+
+	private static final String CHECK_TYPE = """
+			local storedMeta = redis.call('GET', KEYS[2])
+			local storedType = storedMeta and string.match(storedMeta, '^[^:]+')
+			local existed = redis.call('EXISTS', KEYS[1]) == 1
+			if storedType and storedType ~= ARGV[1] and existed then
+				return redis.error_reply('%s the type of the key ' .. storedType .. ' is not the one expected ' .. ARGV[1])
+			end
+			""".formatted(TYPE_ERROR);
+
+	//the metadata is written with the ttl of the key
+	private static final String SET_META = """
+			local function setMeta(meta)
+				local ttl = redis.call('PTTL', KEYS[1])
+				if ttl > 0 then
+					redis.call('SET', KEYS[2], meta, 'PX', ttl)
+				else
+					redis.call('SET', KEYS[2], meta)
+				end
+			end
+			""";
+
+	//the metadata is written only if it changes : a new key (without ttl), a new type or a dropped version
+	private static final String WRITE_TYPE = """
+			if storedMeta ~= ARGV[1] or not existed then
+				setMeta(ARGV[1])
+			end
+			""";
+
+	//the version of a key, '0' if it doesn't exist, '' if it has no version yet (it matches no expected version)
+	private static final String STORED_VERSION = """
+			local storedVersion = '0'
+			if existed then
+				storedVersion = storedMeta and string.match(storedMeta, ':(%d+)$') or ''
+			end
+			""";
+
+	//the integers are formatted with %.0f, lua would write the big numbers with an exponent
+	private static final String NEXT_VERSION = """
+			local function nextVersion(previousVersion)
+				local time = redis.call('TIME')
+				return string.format('%.0f', math.max((tonumber(previousVersion) or 0) + 1, tonumber(time[1]) * 1000000 + tonumber(time[2])))
+			end
+			""";
+
+	private static final String WRITE_VERSIONED = """
+			redis.call('SET', KEYS[1], ARGV[2], 'KEEPTTL')
+			setMeta(ARGV[1] .. ':' .. nextVersion(storedVersion))
+			return 1
+			""";
+
+	static final RedisBlackBoardScript PUT = new RedisBlackBoardScript(SET_META + CHECK_TYPE + """
+			redis.call('SET', KEYS[1], ARGV[2], 'KEEPTTL')
+			""" + WRITE_TYPE + """
+			return 1
+			""");
+
+	/**
+	 * Writes a string value with a new version if the current value is the expected one.
+	 *  - ARGV[3] : 1 if a value is expected, 0 if the key must not exist
+	 *  - ARGV[4] : the expected value
+	 */
+	static final RedisBlackBoardScript COMPARE_AND_SET = new RedisBlackBoardScript(SET_META + NEXT_VERSION + CHECK_TYPE + """
+			local value = redis.call('GET', KEYS[1])
+			if (ARGV[3] == '1' and value ~= ARGV[4]) or (ARGV[3] == '0' and value) then
+				return 0
+			end
+			""" + STORED_VERSION + WRITE_VERSIONED);
+
+	/**
+	 * Writes a string value with a new version if the version of the key is the expected one.
+	 * The version of a key which doesn't exist (expired) is 0.
+	 *  - ARGV[3] : the expected version
+	 */
+	static final RedisBlackBoardScript PUT_IF_VERSION = new RedisBlackBoardScript(SET_META + NEXT_VERSION + CHECK_TYPE + STORED_VERSION + """
+			if storedVersion ~= ARGV[3] then
+				return 0
+			end
+			""" + WRITE_VERSIONED);
+
+	/**
+	 * Returns the version and the value of a key, or only the version 0 if the key doesn't exist.
+	 * A key without version gets its first version.
+	 *  - KEYS[1] : the key
+	 *  - KEYS[2] : the metadata of the key
+	 */
+	static final RedisBlackBoardScript GET_VERSIONED = new RedisBlackBoardScript(SET_META + NEXT_VERSION + """
+			local value = redis.call('GET', KEYS[1])
+			if not value then
+				return { '0' }
+			end
+			local storedMeta = redis.call('GET', KEYS[2])
+			local version = storedMeta and string.match(storedMeta, ':(%d+)$')
+			if not version then
+				version = nextVersion('0')
+				setMeta((storedMeta or 'String') .. ':' .. version)
+			end
+			return { version, value }
+			""");
+
+	static final RedisBlackBoardScript INCR_BY = new RedisBlackBoardScript(SET_META + CHECK_TYPE + """
+			local result = redis.call('INCRBY', KEYS[1], ARGV[2])
+			""" + WRITE_TYPE + """
+			return result
+			""");
+
+	static final RedisBlackBoardScript LIST_PUSH = new RedisBlackBoardScript(SET_META + CHECK_TYPE + """
+			local result = redis.call('RPUSH', KEYS[1], ARGV[2])
+			""" + WRITE_TYPE + """
+			return result
+			""");
+
+	static final RedisBlackBoardScript LIST_PUSH_LEFT = new RedisBlackBoardScript(SET_META + CHECK_TYPE + """
+			local result = redis.call('LPUSH', KEYS[1], ARGV[2])
+			""" + WRITE_TYPE + """
+			return result
+			""");
+
+	/**
+	 * Writes many values after having checked all their types.
+	 * Nothing is written if a type is not the expected one.
+	 *  - KEYS[2i-1], KEYS[2i] : the i-th key and its metadata
+	 *  - ARGV[2i-1], ARGV[2i] : the expected type and the value of the i-th key
+	 */
+	static final RedisBlackBoardScript PUT_ALL = new RedisBlackBoardScript("""
+			local storedMetas = {}
+			local existed = {}
+			for i = 1, #KEYS, 2 do
+				storedMetas[i] = redis.call('GET', KEYS[i + 1])
+				existed[i] = redis.call('EXISTS', KEYS[i]) == 1
+				local storedType = storedMetas[i] and string.match(storedMetas[i], '^[^:]+')
+				if storedType and storedType ~= ARGV[i] and existed[i] then
+					return redis.error_reply('%s the type of the key ' .. storedType .. ' is not the one expected ' .. ARGV[i])
+				end
+			end
+			for i = 1, #KEYS, 2 do
+				redis.call('SET', KEYS[i], ARGV[i + 1], 'KEEPTTL')
+				if storedMetas[i] ~= ARGV[i] or not existed[i] then
+					local ttl = redis.call('PTTL', KEYS[i])
+					if ttl > 0 then
+						redis.call('SET', KEYS[i + 1], ARGV[i], 'PX', ttl)
+					else
+						redis.call('SET', KEYS[i + 1], ARGV[i])
+					end
+				end
+			end
+			return #KEYS / 2
+			""".formatted(TYPE_ERROR));
+
+	/**
+	 * Sets a ttl on a batch of keys of a single slot and on their metadata.
+	 *  - KEYS[2i-1], KEYS[2i] : the i-th key and its metadata
+	 *  - ARGV[1] : the ttl in millis
+	 */
+	static final RedisBlackBoardScript EXPIRE = new RedisBlackBoardScript("""
+			local expired = 0
+			for i = 1, #KEYS, 2 do
+				expired = expired + redis.call('PEXPIRE', KEYS[i], ARGV[1])
+				redis.call('PEXPIRE', KEYS[i + 1], ARGV[1])
+			end
+			return expired
+			""");
+
+	private final String script;
+	private final String sha;
+
+	private RedisBlackBoardScript(final String script) {
+		Assertion.check().isNotBlank(script);
+		//---
+		this.script = script;
+		sha = sha1(script);
+		SCRIPTS.add(this);
+	}
+
+	/**
+	 * Loads all the scripts in redis (on all the nodes of a cluster), so they can be called by their sha.
+	 *
+	 * @param jedis the client
+	 */
+	static void loadAll(final UnifiedJedis jedis) {
+		SCRIPTS.forEach(script -> jedis.scriptLoad(script.script));
+	}
+
+	/**
+	 * Executes the script in a single round trip.
+	 *
+	 * @param jedis the client
+	 * @param keys the keys
+	 * @param args the args
+	 * @return the result of the script
+	 */
+	Object eval(final UnifiedJedis jedis, final List<String> keys, final List<String> args) {
+		try {
+			try {
+				return jedis.evalsha(sha, keys, args);
+			} catch (final JedisNoScriptException e) {
+				return jedis.eval(script, keys, args);
+			}
+		} catch (final JedisDataException e) {
+			throw translate(e);
+		}
+	}
+
+	/**
+	 * Queues the script in a pipeline, by its sha : the scripts must have been loaded (see loadAll).
+	 *
+	 * @param commands the pipeline
+	 * @param keys the keys
+	 * @param args the args
+	 * @return the future result of the script
+	 */
+	Response<Object> queue(final PipeliningBase commands, final List<String> keys, final List<String> args) {
+		return commands.evalsha(sha, keys, args);
+	}
+
+	/**
+	 * Queues the script in a transaction.
+	 * The script is sent with the command : a transaction can't be replayed if redis doesn't know the script.
+	 *
+	 * @param tx the transaction
+	 * @param keys the keys
+	 * @param args the args
+	 * @return the future result of the script
+	 */
+	Response<Object> queueInTransaction(final AbstractTransaction tx, final List<String> keys, final List<String> args) {
+		return tx.eval(script, keys, args);
+	}
+
+	/**
+	 * @param storedMeta the metadata of a key
+	 * @return the type of the key
+	 */
+	static Type typeOf(final String storedMeta) {
+		final int end = storedMeta.indexOf(':');
+		return Type.valueOf(end < 0 ? storedMeta : storedMeta.substring(0, end));
+	}
+
+	/**
+	 * Translates the errors raised by the scripts (a wrong type...) into the exceptions of the blackboard.
+	 *
+	 * @param e the error returned by redis
+	 * @return the exception to throw
+	 */
+	static RuntimeException translate(final JedisDataException e) {
+		final String message = e.getMessage();
+		if (message != null && message.startsWith(TYPE_ERROR)) {
+			return new IllegalStateException(message.substring(TYPE_ERROR.length()).strip());
+		}
+		return e;
+	}
+
+	private static String sha1(final String script) {
+		try {
+			final var digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest);
+		} catch (final NoSuchAlgorithmException e) {
+			throw WrappedException.wrap(e);
+		}
+	}
+}
@@ -1,33 +1,78 @@
 package io.vertigo.ai.plugins.bb.redis;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import javax.inject.Inject;
 
 import io.vertigo.ai.bb.BBKey;
 import io.vertigo.ai.bb.BBKeyPattern;
+import io.vertigo.ai.bb.BBVersionedValue;
+import io.vertigo.ai.bb.BBWatch;
 import io.vertigo.ai.bb.BlackBoard.Type;
 import io.vertigo.ai.bb.BlackBoardManager;
+import io.vertigo.ai.impl.bb.AsyncBlackBoardStore;
 import io.vertigo.ai.impl.bb.BlackBoardStorePlugin;
 import io.vertigo.connectors.redis.RedisConnector;
+import io.vertigo.core.analytics.metric.Metric;
+import io.vertigo.core.analytics.metric.Metrics;
+import io.vertigo.core.lang.Assertion;
+import io.vertigo.core.node.component.Activeable;
 import io.vertigo.core.param.ParamValue;
-import redis.clients.jedis.AbstractTransaction;
+import redis.clients.jedis.ConnectionPool;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
 import redis.clients.jedis.UnifiedJedis;
 import redis.clients.jedis.params.ScanParams;
 import redis.clients.jedis.resps.ScanResult;
 
-public class RedisBlackBoardStorePlugin implements BlackBoardStorePlugin {
+public class RedisBlackBoardStorePlugin implements BlackBoardStorePlugin, Activeable {
+	private static final int SCAN_BATCH_SIZE = 1000;
 
 	private final String storeName;
+	//where the keys and their metadata are stored
+	private final RedisBlackBoardKeys keys;
+	//the client of the connector is shared : it borrows a pooled connection for each command and must never be closed
 	private final RedisConnector redisConnector;
-
+	//near caches, disabled by default
+	private final RedisNearCache<String> valueCache;
+	private final RedisNearCache<Type> typeCache;
+	//the pipeline of the asynchronous api, started on first use
+	private final Lock pipelineLock = new ReentrantLock();
+	private RedisBlackBoardPipeline pipeline;
+	//the subscription to the keyspace notifications, started with the first watch
+	private final Lock watcherLock = new ReentrantLock();
+	private RedisBlackBoardWatcher watcher;
+
+	/**
+	 * Constructor.
+	 * @param storeNameOpt the name of the store (main by default)
+	 * @param connectorNameOpt the name of the redis connector (main by default)
+	 * @param nearCacheMaxSizeOpt the max number of keys kept in the local near cache (0 by default : no near cache)
+	 * @param nearCacheTtlSecondsOpt the ttl of a key in the near cache (1s by default), this is the max delay to see a write done by another node
+	 * @param hashTagsOpt if the root of each key is used as hash tag, to keep each session on a single shard of a redis cluster (false by default, required on a redis cluster)
+	 * @param redisConnectors the redis connectors
+	 */
 	@Inject
 	public RedisBlackBoardStorePlugin(
 			final @ParamValue("storeName") Optional<String> storeNameOpt,
 			final @ParamValue("connectorName") Optional<String> connectorNameOpt,
+			final @ParamValue("nearCacheMaxSize") Optional<Integer> nearCacheMaxSizeOpt,
+			final @ParamValue("nearCacheTtlSeconds") Optional<Integer> nearCacheTtlSecondsOpt,
+			final @ParamValue("hashTags") Optional<Boolean> hashTagsOpt,
 			final List<RedisConnector> redisConnectors) {
 
 		storeName = storeNameOpt.orElse(BlackBoardManager.MAIN_STORE_NAME);
@@ -35,77 +80,268 @@ public class RedisBlackBoardStorePlugin implements BlackBoardStorePlugin {
 		redisConnector = redisConnectors.stream()
 				.filter(connector -> connectorName.equals(connector.getName()))
 				.findFirst().get();
+		final int nearCacheMaxSize = nearCacheMaxSizeOpt.orElse(0);
+		final long nearCacheTtlMillis = nearCacheTtlSecondsOpt.orElse(1) * 1000L;
+		valueCache = new RedisNearCache<>(nearCacheMaxSize, nearCacheTtlMillis);
+		typeCache = new RedisNearCache<>(nearCacheMaxSize, nearCacheTtlMillis);
+		keys = new RedisBlackBoardKeys(hashTagsOpt.orElse(false));
+	}
 
+	RedisBlackBoardKeys getKeys() {
+		return keys;
 	}
 
+	/**
+	 * A script uses a key and its metadata : on a redis cluster they must be in the same slot, so the hash tags are required.
+	 */
 	@Override
-	public boolean exists(final BBKey key) {
-		try (final UnifiedJedis jedis = redisConnector.getClient()) {
-			return jedis.exists(key.key());
+	public void start() {
+		Assertion.check()
+				.isTrue(keys.isHashTags() || !(redisConnector.getClient() instanceof JedisCluster),
+						"the redis blackboard store {0} requires the param hashTags on a redis cluster", storeName);
+		//---
+		// the pipeline is started on first use
+	}
+
+	@Override
+	public void stop() {
+		pipelineLock.lock();
+		try {
+			if (pipeline != null) {
+				pipeline.stop();
+				pipeline = null;
+			}
+		} finally {
+			pipelineLock.unlock();
+		}
+		watcherLock.lock();
+		try {
+			if (watcher != null) {
+				watcher.stop();
+				watcher = null;
+			}
+		} finally {
+			watcherLock.unlock();
+		}
+	}
+
+	@Override
+	public AsyncBlackBoardStore getAsyncStore() {
+		pipelineLock.lock();
+		try {
+			if (pipeline == null) {
+				pipeline = new RedisBlackBoardPipeline(redisConnector, storeName);
+			}
+			return new RedisAsyncBlackBoardStore(this, pipeline);
+		} finally {
+			pipelineLock.unlock();
 		}
 	}
 
+	@Override
+	public void batch(final Consumer<BlackBoardStorePlugin> unitOfWork) {
+		final var redisBlackBoardBatch = new RedisBlackBoardBatch(this, redisConnector.getClient());
+		try {
+			unitOfWork.accept(redisBlackBoardBatch);
+			redisBlackBoardBatch.flush();
+		} finally {
+			redisBlackBoardBatch.discard(); // nothing to discard if the unit of work has been flushed
+		}
+	}
+
+	@Override
+	public boolean exists(final BBKey key) {
+		return redisConnector.getClient().exists(keys.key(key));
+	}
+
 	@Override
 	public Set<BBKey> keys(final BBKeyPattern keyPattern) {
 		final Set<BBKey> result = new HashSet<>();
-		try (final UnifiedJedis jedis = redisConnector.getClient()) {
-			final ScanParams scanParams = new ScanParams().count(1000).match(keyPattern.keyPattern());
-			String cur = ScanParams.SCAN_POINTER_START;
-			do {
-				final ScanResult<String> scanResult = jedis.scan(cur, scanParams);
-
-				// work with result
-				scanResult.getResult().stream()
-						.filter(key -> !"types".equals(key))
-						.map(BBKey::of)
-						.forEach(result::add);
-				cur = scanResult.getCursor();
-			} while (!cur.equals(ScanParams.SCAN_POINTER_START));
+		scan(keyPattern, keys.pattern(keyPattern), redisKey -> {
+			final BBKey key = keys.toBBKey(redisKey);
+			if (key != null) {
+				result.add(key);
+			}
+		});
+		return result;
+	}
 
+	/**
+	 * Scans the keys in redis matching a pattern.
+	 * The keys of a single slot are scanned on their shard, the other ones on all the nodes of a cluster (a key may be found many times).
+	 */
+	private void scan(final BBKeyPattern keyPattern, final String redisPattern, final Consumer<String> action) {
+		final ScanParams scanParams = new ScanParams().count(1000).match(redisPattern);
+		final UnifiedJedis client = redisConnector.getClient();
+		if (client instanceof final JedisCluster jedisCluster && !keys.isSingleSlot(keyPattern)) {
+			for (final ConnectionPool nodePool : jedisCluster.getClusterNodes().values()) {
+				try (Jedis node = new Jedis(nodePool.getResource())) {
+					scan(cursor -> node.scan(cursor, scanParams), action);
+				}
+			}
+		} else {
+			scan(cursor -> client.scan(cursor, scanParams), action);
 		}
-		return result;
+	}
 
+	private static void scan(final Function<String, ScanResult<String>> scanner, final Consumer<String> action) {
+		String cursor = ScanParams.SCAN_POINTER_START;
+		do {
+			final ScanResult<String> scanResult = scanner.apply(cursor);
+			scanResult.getResult().forEach(action);
+			cursor = scanResult.getCursor();
+		} while (!cursor.equals(ScanParams.SCAN_POINTER_START));
+	}
+
+	/**
+	 * Applies an action on all the keys matching a pattern, by batches of keys of a single slot.
+	 * The keys are scanned by the client : redis is never blocked by a long scan.
+	 * The metadata are scanned rather than the data : the metadata of an emptied list (whose data has been removed by redis) is found too.
+	 */
+	private void scanBatches(final BBKeyPattern keyPattern, final Consumer<List<BBKey>> action) {
+		final Map<String, List<BBKey>> batchesBySlot = new HashMap<>();
+		scan(keyPattern, keys.metaPattern(keyPattern), redisKey -> {
+			final BBKey key = keys.metaToBBKey(redisKey);
+			if (key != null) {
+				final List<BBKey> batch = batchesBySlot.computeIfAbsent(keys.slot(key), slot -> new ArrayList<>());
+				batch.add(key);
+				if (batch.size() == SCAN_BATCH_SIZE) {
+					action.accept(List.copyOf(batch));
+					batch.clear();
+				}
+			}
+		});
+		batchesBySlot.values().stream()
+				.filter(batch -> !batch.isEmpty())
+				.forEach(action);
 	}
 
 	@Override
 	public void delete(final BBKeyPattern keyPattern) {
-		try (final UnifiedJedis jedis = redisConnector.getClient()) {
-			final ScanParams scanParams = new ScanParams().count(1000).match(keyPattern.keyPattern());
-			String cur = ScanParams.SCAN_POINTER_START;
-			do {
-				final ScanResult<String> scanResult = jedis.scan(cur, scanParams);
-				// work with result
-				scanResult.getResult().forEach(key -> {
-					try (final AbstractTransaction tx = jedis.multi()) {
-						tx.del(key);
-						tx.hdel("types", key); // if it was a list, there was no type but whatever
-						tx.exec();
-					}
-				});
-				cur = scanResult.getCursor();
-			} while (!cur.equals(ScanParams.SCAN_POINTER_START));
-
-			if ("/*".equals(keyPattern.keyPattern())) {// also remove the types in this case
-				jedis.del("types");
-			}
+		final String keyPatternString = keyPattern.keyPattern();
+		if (keyPatternString.endsWith("*")) {
+			// each batch of scanned keys is removed with their metadata by a single DEL
+			scanBatches(keyPattern, batch -> redisConnector.getClient().del(keys.keysWithMeta(batch).toArray(String[]::new)));
+		} else {
+			redisConnector.getClient().del(keys.scriptKeys(BBKey.of(keyPatternString)).toArray(String[]::new));
 		}
-
+		invalidateNearCache(keyPattern);
 	}
 
+	/**
+	 * The type is read in the metadata of the key, which expires with the key.
+	 * Like in the other stores, an emptied list keeps its type until the key is deleted or expires.
+	 */
 	@Override
 	public Type getType(final BBKey key) {
-		try (final UnifiedJedis jedis = redisConnector.getClient()) {
-			final var storedType = jedis.hget("types", key.key());
-			return storedType != null ? Type.valueOf(storedType) : null;
+		return typeCache.get(key.key(), k -> {
+			final String storedMeta = redisConnector.getClient().get(keys.metaKey(key));
+			return storedMeta != null ? RedisBlackBoardScript.typeOf(storedMeta) : null;
+		});
+	}
+
+	@Override
+	public void expire(final BBKeyPattern keyPattern, final Duration ttl) {
+		final List<String> args = List.of(String.valueOf(ttl.toMillis()));
+		final String keyPatternString = keyPattern.keyPattern();
+		if (keyPatternString.endsWith("*")) {
+			// each batch of scanned keys is expired with their metadata by a single script
+			scanBatches(keyPattern, batch -> RedisBlackBoardScript.EXPIRE.eval(redisConnector.getClient(), keys.keysWithMeta(batch), args));
+		} else {
+			RedisBlackBoardScript.EXPIRE.eval(redisConnector.getClient(), keys.keysWithMeta(List.of(BBKey.of(keyPatternString))), args);
+		}
+	}
+
+	/**
+	 * The notifications are the keyspace notifications of redis : they must be enabled on the server (notify-keyspace-events "KA").
+	 */
+	@Override
+	public BBWatch watch(final BBKeyPattern keyPattern, final Consumer<BBKey> listener) {
+		watcherLock.lock();
+		try {
+			if (watcher == null) {
+				watcher = new RedisBlackBoardWatcher(redisConnector, keys, storeName);
+			}
+		} finally {
+			watcherLock.unlock();
 		}
+		return watcher.watch(keyPattern, listener);
 	}
 
 	@Override
 	public String get(final BBKey key) {
-		try (final UnifiedJedis jedis = redisConnector.getClient()) {
-			return jedis.get(key.key());
+		return valueCache.get(key.key(), k -> redisConnector.getClient().get(keys.key(key)));
+	}
+
+	@Override
+	public List<String> getAll(final List<BBKey> bbKeys) {
+		if (bbKeys.isEmpty()) {
+			return List.of();
+		}
+		final List<String> stringKeys = bbKeys.stream()
+				.map(BBKey::key)
+				.toList();
+		return valueCache.getAll(stringKeys, missingKeys -> mget(missingKeys.stream().map(BBKey::of).toList()));
+	}
+
+	/**
+	 * Reads many keys, with a single MGET by slot.
+	 */
+	private List<String> mget(final List<BBKey> bbKeys) {
+		if (!keys.isHashTags()) {
+			return redisConnector.getClient().mget(bbKeys.stream().map(keys::key).toArray(String[]::new));
+		}
+		final Map<String, List<Integer>> indexesBySlot = new LinkedHashMap<>();
+		for (int i = 0; i < bbKeys.size(); i++) {
+			indexesBySlot.computeIfAbsent(keys.slot(bbKeys.get(i)), slot -> new ArrayList<>()).add(i);
+		}
+		final String[] result = new String[bbKeys.size()];
+		indexesBySlot.values().forEach(indexes -> {
+			final List<String> values = redisConnector.getClient().mget(indexes.stream().map(i -> keys.key(bbKeys.get(i))).toArray(String[]::new));
+			for (int i = 0; i < indexes.size(); i++) {
+				result[indexes.get(i)] = values.get(i);
+			}
+		});
+		return Arrays.asList(result);
+	}
+
+	@Override
+	public void putAll(final Map<BBKey, ?> values) {
+		if (values.isEmpty()) {
+			return;
 		}
+		// a single script by slot checks all the types then writes all the values
+		putAllScriptArgs(values).forEach((scriptKeys, args) -> RedisBlackBoardScript.PUT_ALL.eval(redisConnector.getClient(), scriptKeys, args));
+		values.forEach((key, value) -> {
+			typeCache.put(key.key(), typeOf(value));
+			valueCache.put(key.key(), String.valueOf(value));
+		});
+	}
 
+	/**
+	 * Prepares the PUT_ALL scripts writing some values : a single script by slot.
+	 *
+	 * @param values the values mapped with their keys
+	 * @return the args of each script mapped with its keys
+	 */
+	Map<List<String>, List<String>> putAllScriptArgs(final Map<BBKey, ?> values) {
+		final Map<String, List<String>> scriptKeysBySlot = new LinkedHashMap<>();
+		final Map<String, List<String>> argsBySlot = new HashMap<>();
+		values.forEach((key, value) -> {
+			scriptKeysBySlot.computeIfAbsent(keys.slot(key), slot -> new ArrayList<>()).addAll(keys.scriptKeys(key));
+			final List<String> args = argsBySlot.computeIfAbsent(keys.slot(key), slot -> new ArrayList<>());
+			args.add(typeOf(value).name());
+			args.add(String.valueOf(value));
+		});
+		final Map<List<String>, List<String>> result = new LinkedHashMap<>();
+		scriptKeysBySlot.forEach((slot, scriptKeys) -> result.put(scriptKeys, argsBySlot.get(slot)));
+		return result;
+	}
+
+	static Type typeOf(final Object value) {
+		return value instanceof Integer
+				? Type.Integer
+				: Type.String;
 	}
 
 	@Override
@@ -115,13 +351,46 @@ public class RedisBlackBoardStorePlugin implements BlackBoardStorePlugin {
 
 	@Override
 	public void putString(final BBKey key, final String value) {
-		try (final UnifiedJedis jedis = redisConnector.getClient()) {
-			try (final AbstractTransaction tx = jedis.multi()) {
-				tx.hset("types", key.key(), Type.String.name());
-				tx.set(key.key(), value);
-				tx.exec();
-			}
+		eval(RedisBlackBoardScript.PUT, key, Type.String, value);
+		valueCache.put(key.key(), value);
+	}
+
+	@Override
+	public boolean compareAndSet(final BBKey key, final String expected, final String newValue) {
+		final List<String> args = expected == null
+				? List.of(Type.String.name(), newValue, "0", "")
+				: List.of(Type.String.name(), newValue, "1", expected);
+		return conditionalPut(RedisBlackBoardScript.COMPARE_AND_SET, key, newValue, args);
+	}
+
+	@Override
+	public BBVersionedValue getVersioned(final BBKey key) {
+		// always read in redis : the near cache doesn't know the versions
+		final List<?> result = (List<?>) RedisBlackBoardScript.GET_VERSIONED.eval(redisConnector.getClient(), keys.scriptKeys(key), List.of());
+		final long version = Long.parseLong(String.valueOf(result.get(0)));
+		return result.size() > 1
+				? new BBVersionedValue(String.valueOf(result.get(1)), version)
+				: new BBVersionedValue(null, version);
+	}
+
+	@Override
+	public boolean putIfVersion(final BBKey key, final String value, final long version) {
+		return conditionalPut(RedisBlackBoardScript.PUT_IF_VERSION, key, value, List.of(Type.String.name(), value, String.valueOf(version)));
+	}
+
+	/**
+	 * Checks a condition and writes a string value in a single atomic script.
+	 */
+	private boolean conditionalPut(final RedisBlackBoardScript script, final BBKey key, final String value, final List<String> args) {
+		final boolean written = ((Number) script.eval(redisConnector.getClient(), keys.scriptKeys(key), args)).intValue() == 1;
+		if (written) {
+			typeCache.put(key.key(), Type.String);
+			valueCache.put(key.key(), value);
+		} else {
+			// the cached value is probably out of date
+			invalidateNearCache(Set.of(key.key()));
 		}
+		return written;
 	}
 
 	@Override
@@ -132,60 +401,125 @@ public class RedisBlackBoardStorePlugin implements BlackBoardStorePlugin {
 
 	@Override
 	public void putInteger(final BBKey key, final Integer value) {
-		try (final UnifiedJedis jedis = redisConnector.getClient()) {
-			try (final AbstractTransaction tx = jedis.multi()) {
-				tx.hset("types", key.key(), Type.Integer.name());
-				tx.set(key.key(), String.valueOf(value));
-				tx.exec();
-			}
-		}
-
+		final var stringValue = value != null ? String.valueOf(value) : null;
+		eval(RedisBlackBoardScript.PUT, key, Type.Integer, stringValue);
+		valueCache.put(key.key(), stringValue);
 	}
 
 	@Override
 	public void incrBy(final BBKey key, final int value) {
-		try (final UnifiedJedis jedis = redisConnector.getClient()) {
-			try (final AbstractTransaction tx = jedis.multi()) {
-				tx.hset("types", key.key(), Type.Integer.name()); // ensure type is set
-				tx.incrBy(key.key(), value);
-				tx.exec();
-			}
+		final Object result = eval(RedisBlackBoardScript.INCR_BY, key, Type.Integer, String.valueOf(value));
+		valueCache.put(key.key(), String.valueOf(result)); // the script returns the new value
+	}
+
+	/**
+	 * Checks the type and writes the value in a single atomic round trip.
+	 * A null value put deletes the key.
+	 */
+	private Object eval(final RedisBlackBoardScript script, final BBKey key, final Type type, final String value) {
+		if (value == null && script == RedisBlackBoardScript.PUT) {
+			delete(BBKeyPattern.of(key.key()));
+			return null;
+		}
+		final Object result = script.eval(redisConnector.getClient(), keys.scriptKeys(key), List.of(type.name(), value));
+		typeCache.put(key.key(), type);
+		return result;
+	}
+
+	/**
+	 * Invalidates the keys matching a pattern in the near cache.
+	 *
+	 * @param keyPattern the pattern of the deleted keys
+	 */
+	void invalidateNearCache(final BBKeyPattern keyPattern) {
+		final var keyPatternString = keyPattern.keyPattern();
+		if (keyPatternString.endsWith("*")) {
+			valueCache.invalidateAll();
+			typeCache.invalidateAll();
+		} else {
+			invalidateNearCache(Set.of(keyPatternString));
+		}
+	}
+
+	/**
+	 * Invalidates some keys in the near cache after writes that were not done through this plugin.
+	 *
+	 * @param keys the written keys
+	 */
+	void invalidateNearCache(final Collection<String> keys) {
+		keys.forEach(key -> {
+			valueCache.invalidate(key);
+			typeCache.invalidate(key);
+		});
+	}
+
+	/**
+	 * @return the metrics of the near cache
+	 */
+	@Metrics
+	public List<Metric> getNearCacheMetrics() {
+		if (!valueCache.isEnabled()) {
+			return List.of();
 		}
+		return List.of(
+				nearCacheMetric("bbNearCacheHits", valueCache.getHits() + typeCache.getHits()),
+				nearCacheMetric("bbNearCacheMisses", valueCache.getMisses() + typeCache.getMisses()),
+				nearCacheMetric("bbNearCacheEvictions", valueCache.getEvictions() + typeCache.getEvictions()),
+				nearCacheMetric("bbNearCacheSize", valueCache.size() + typeCache.size()));
+	}
+
+	private Metric nearCacheMetric(final String name, final long value) {
+		return Metric.builder()
+				.withName(name)
+				.withFeature("blackboard.redis." + storeName)
+				.withValue((double) value)
+				.withSuccess()
+				.build();
 	}
 
 	@Override
 	public long listSize(final BBKey key) {
-		try (final UnifiedJedis jedis = redisConnector.getClient()) {
-			return jedis.llen(key.key());
-		}
+		return redisConnector.getClient().llen(keys.key(key));
 	}
 
 	@Override
 	public void listPush(final BBKey key, final String value) {
-		try (final UnifiedJedis jedis = redisConnector.getClient()) {
-			jedis.rpush(key.key(), value);
-		}
+		eval(RedisBlackBoardScript.LIST_PUSH, key, Type.List, value);
 	}
 
 	@Override
 	public String listPop(final BBKey key) {
-		try (final UnifiedJedis jedis = redisConnector.getClient()) {
-			return jedis.rpop(key.key());
-		}
+		return redisConnector.getClient().rpop(keys.key(key));
 	}
 
 	@Override
 	public String listPeek(final BBKey key) {
-		try (final UnifiedJedis jedis = redisConnector.getClient()) {
-			return jedis.lindex(key.key(), -1); // last is 0
-		}
+		return redisConnector.getClient().lindex(keys.key(key), -1); // last is 0
 	}
 
 	@Override
 	public String listGet(final BBKey key, final int idx) {
-		try (final UnifiedJedis jedis = redisConnector.getClient()) {
-			return jedis.lindex(key.key(), idx);
-		}
+		return redisConnector.getClient().lindex(keys.key(key), idx);
+	}
+
+	@Override
+	public void listPushLeft(final BBKey key, final String value) {
+		eval(RedisBlackBoardScript.LIST_PUSH_LEFT, key, Type.List, value);
+	}
+
+	@Override
+	public String listPopLeft(final BBKey key) {
+		return redisConnector.getClient().lpop(keys.key(key));
+	}
+
+	@Override
+	public List<String> listRange(final BBKey key, final int from, final int to) {
+		return redisConnector.getClient().lrange(keys.key(key), from, to);
+	}
+
+	@Override
+	public void listTrim(final BBKey key, final int from, final int to) {
+		redisConnector.getClient().ltrim(keys.key(key), from, to);
 	}
 
 	@Override
@@ -0,0 +1,197 @@
+package io.vertigo.ai.plugins.bb.redis;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertigo.ai.bb.BBKey;
+import io.vertigo.ai.bb.BBKeyPattern;
+import io.vertigo.ai.bb.BBWatch;
+import io.vertigo.connectors.redis.RedisConnector;
+import io.vertigo.core.lang.Assertion;
+import redis.clients.jedis.JedisPubSub;
+
+/**
+ * Watches the keys of a redis store with the keyspace notifications.
+ *
+ * The notifications must be enabled on the redis server (notify-keyspace-events "KA" at least).
+ * A single thread subscribes to the channels of all the watched patterns, and calls the listeners.
+ * The subscription is restored if the connection is lost : the notifications sent meanwhile are lost.
+ * With a redis cluster, only the notifications of the node of the subscription are received.
+ */
+final class RedisBlackBoardWatcher {
+	private static final Logger LOGGER = LogManager.getLogger(RedisBlackBoardWatcher.class);
+	private static final String KEYSPACE_PREFIX = "__keyspace@*__:";
+	//never unsubscribed : the subscription stays open while there is no watch
+	private static final String IDLE_CHANNEL = "__bb_idle__";
+	private static final long MAX_RETRY_DELAY_MILLIS = 10_000;
+
+	private final class Watch implements BBWatch {
+		private final String channelPattern;
+		private final Consumer<BBKey> listener;
+
+		private Watch(final String channelPattern, final Consumer<BBKey> listener) {
+			this.channelPattern = channelPattern;
+			this.listener = listener;
+		}
+
+		@Override
+		public void close() {
+			unwatch(this);
+		}
+	}
+
+	private final class KeyspacePubSub extends JedisPubSub {
+		@Override
+		public void onPMessage(final String pattern, final String channel, final String message) {
+			final BBKey bbKey = keys.toBBKey(channel.substring(channel.indexOf(':') + 1));
+			if (bbKey == null) {
+				return; // the metadata...
+			}
+			final List<Watch> patternWatches = watches.get(pattern);
+			if (patternWatches != null) {
+				for (final Watch watch : patternWatches) {
+					try {
+						watch.listener.accept(bbKey);
+					} catch (final RuntimeException e) {
+						LOGGER.error("the listener of the channel pattern " + pattern + " has failed", e);
+					}
+				}
+			}
+		}
+
+		@Override
+		public void onPSubscribe(final String pattern, final int subscribedChannels) {
+			final CountDownLatch latch = subscriptions.remove(pattern);
+			if (latch != null) {
+				latch.countDown();
+			}
+			if (IDLE_CHANNEL.equals(pattern) && !subscriptions.isEmpty()) {
+				//the patterns watched while the connection was opened
+				psubscribe(subscriptions.keySet().toArray(String[]::new));
+			}
+		}
+	}
+
+	private final RedisConnector redisConnector;
+	private final RedisBlackBoardKeys keys;
+	//the watches by channel pattern
+	private final Map<String, List<Watch>> watches = new ConcurrentHashMap<>();
+	//the subscriptions waiting for their acknowledgment
+	private final Map<String, CountDownLatch> subscriptions = new ConcurrentHashMap<>();
+	private final Thread thread;
+	private volatile KeyspacePubSub pubSub;
+	private volatile boolean running = true;
+
+	RedisBlackBoardWatcher(final RedisConnector redisConnector, final RedisBlackBoardKeys keys, final String storeName) {
+		Assertion.check()
+				.isNotNull(redisConnector)
+				.isNotNull(keys)
+				.isNotBlank(storeName);
+		//---
+		this.redisConnector = redisConnector;
+		this.keys = keys;
+		thread = new Thread(this::run, "bb-redis-watcher-" + storeName);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	BBWatch watch(final BBKeyPattern keyPattern, final Consumer<BBKey> listener) {
+		Assertion.check()
+				.isNotNull(keyPattern)
+				.isNotNull(listener);
+		//---
+		final String channelPattern = KEYSPACE_PREFIX + keys.pattern(keyPattern);
+		final Watch watch = new Watch(channelPattern, listener);
+		final CountDownLatch latch = new CountDownLatch(1);
+		final boolean[] subscribe = { false };
+		watches.compute(channelPattern, (k, patternWatches) -> {
+			if (patternWatches == null) {
+				subscribe[0] = true;
+				subscriptions.put(channelPattern, latch);
+				return new CopyOnWriteArrayList<>(List.of(watch));
+			}
+			patternWatches.add(watch);
+			return patternWatches;
+		});
+		if (subscribe[0]) {
+			awaitSubscription(channelPattern, latch);
+		}
+		return watch;
+	}
+
+	private void unwatch(final Watch watch) {
+		watches.computeIfPresent(watch.channelPattern, (k, patternWatches) -> {
+			patternWatches.remove(watch);
+			if (patternWatches.isEmpty()) {
+				final KeyspacePubSub currentPubSub = pubSub;
+				if (currentPubSub != null && currentPubSub.isSubscribed()) {
+					currentPubSub.punsubscribe(watch.channelPattern);
+				}
+				return null;
+			}
+			return patternWatches;
+		});
+	}
+
+	private void awaitSubscription(final String channelPattern, final CountDownLatch latch) {
+		final KeyspacePubSub currentPubSub = pubSub;
+		if (currentPubSub != null && currentPubSub.isSubscribed()) {
+			currentPubSub.psubscribe(channelPattern);
+		}
+		//otherwise the pattern is subscribed with all the others once connected
+		try {
+			if (!latch.await(5, TimeUnit.SECONDS)) {
+				LOGGER.warn("the subscription to " + channelPattern + " is not acknowledged yet, the first notifications may be lost");
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	void stop() {
+		running = false;
+		final KeyspacePubSub currentPubSub = pubSub;
+		if (currentPubSub != null && currentPubSub.isSubscribed()) {
+			currentPubSub.punsubscribe();
+		}
+		thread.interrupt();
+	}
+
+	private void run() {
+		long retryDelayMillis = 100;
+		while (running) {
+			final KeyspacePubSub currentPubSub = new KeyspacePubSub();
+			pubSub = currentPubSub;
+			final String[] channelPatterns = watches.keySet().toArray(String[]::new);
+			final String[] allChannelPatterns = new String[channelPatterns.length + 1];
+			allChannelPatterns[0] = IDLE_CHANNEL;
+			System.arraycopy(channelPatterns, 0, allChannelPatterns, 1, channelPatterns.length);
+			try {
+				//blocks until all the patterns are unsubscribed or the connection is lost
+				redisConnector.getClient().psubscribe(currentPubSub, allChannelPatterns);
+				retryDelayMillis = 100;
+			} catch (final RuntimeException e) {
+				if (running) {
+					LOGGER.warn("the subscription to the keyspace notifications is lost, retry in " + retryDelayMillis + "ms", e);
+				}
+			}
+			if (running) {
+				try {
+					Thread.sleep(retryDelayMillis);
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+				retryDelayMillis = Math.min(retryDelayMillis * 2, MAX_RETRY_DELAY_MILLIS);
+			}
+		}
+	}
+}
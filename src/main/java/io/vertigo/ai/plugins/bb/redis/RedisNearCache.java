@@ -0,0 +1,226 @@
+package io.vertigo.ai.plugins.bb.redis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * A local cache in front of redis, to avoid a round trip when the same key is read many times.
+ *
+ * The cache is bounded : when it's full, the expired entries are evicted first, then arbitrary ones (an entry only lives for the ttl).
+ * An entry is
+ *  - invalidated by the writes done through the same plugin
+ *  - expired after a ttl, which bounds the staleness of the writes done by the other nodes
+ *
+ * The reads never take a lock. A miss marks its key as loading and caches the loaded value only if the mark is still there :
+ * a write or an invalidation of the key during the load removes the mark, so a stale value is never cached.
+ * The writes on the other keys don't prevent the loaded value from being cached.
+ *
+ * A cache with a max size of 0 is disabled and always loads the values.
+ *
+ * @param <V> the type of the cached values
+ */
+final class RedisNearCache<V> {
+	//compared by identity : a loading mark is only replaced by the load which put it
+	private static final class Entry<V> {
+		private final V value;
+		private final long expiresAt;
+
+		private Entry(final V value, final long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+		private boolean isValid(final long now) {
+			return expiresAt > now;
+		}
+	}
+
+	private final int maxSize;
+	private final long ttlMillis;
+	private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	RedisNearCache(final int maxSize, final long ttlMillis) {
+		Assertion.check()
+				.isTrue(maxSize >= 0, "the max size of the near cache must be >= 0")
+				.isTrue(ttlMillis > 0, "the ttl of the near cache must be > 0");
+		//---
+		this.maxSize = maxSize;
+		this.ttlMillis = ttlMillis;
+	}
+
+	boolean isEnabled() {
+		return maxSize > 0;
+	}
+
+	/**
+	 * Returns the cached value or loads it.
+	 *
+	 * @param key the key
+	 * @param loader the loader called on a miss
+	 * @return the value (may be null)
+	 */
+	V get(final String key, final Function<String, V> loader) {
+		if (!isEnabled()) {
+			return loader.apply(key);
+		}
+		final Entry<V> entry = entries.get(key);
+		if (entry != null && entry.isValid(System.currentTimeMillis())) {
+			hits.increment();
+			return entry.value;
+		}
+		misses.increment();
+		final Entry<V> loading = startLoading(key, entry);
+		final V value = loader.apply(key);
+		endLoading(key, loading, value);
+		return value;
+	}
+
+	/**
+	 * Returns the cached values and loads all the missing values at once.
+	 *
+	 * @param keys the keys
+	 * @param loader the loader called with the missing keys, returns the values in the same order
+	 * @return the values in the same order as the keys (a value may be null)
+	 */
+	List<V> getAll(final List<String> keys, final Function<List<String>, List<V>> loader) {
+		if (!isEnabled()) {
+			return loader.apply(keys);
+		}
+		final List<V> values = new ArrayList<>(Collections.nCopies(keys.size(), null));
+		final List<Integer> missingIndexes = new ArrayList<>();
+		final List<Entry<V>> loadings = new ArrayList<>();
+		final long now = System.currentTimeMillis();
+		for (int i = 0; i < keys.size(); i++) {
+			final Entry<V> entry = entries.get(keys.get(i));
+			if (entry != null && entry.isValid(now)) {
+				values.set(i, entry.value);
+			} else {
+				missingIndexes.add(i);
+				loadings.add(startLoading(keys.get(i), entry));
+			}
+		}
+		hits.add(keys.size() - missingIndexes.size());
+		if (missingIndexes.isEmpty()) {
+			return values;
+		}
+		misses.add(missingIndexes.size());
+		final List<String> missingKeys = new ArrayList<>(missingIndexes.size());
+		missingIndexes.forEach(i -> missingKeys.add(keys.get(i)));
+		final List<V> loadedValues = loader.apply(missingKeys);
+		for (int j = 0; j < missingIndexes.size(); j++) {
+			final int i = missingIndexes.get(j);
+			values.set(i, loadedValues.get(j));
+			endLoading(keys.get(i), loadings.get(j), loadedValues.get(j));
+		}
+		return values;
+	}
+
+	/**
+	 * Marks a missing key as loading.
+	 *
+	 * @param key the key
+	 * @param previousEntry the expired entry of the key (or null)
+	 * @return the loading mark, or null if another thread has changed the key meanwhile (the loaded value won't be cached)
+	 */
+	private Entry<V> startLoading(final String key, final Entry<V> previousEntry) {
+		final Entry<V> loading = new Entry<>(null, 0);
+		final boolean marked = previousEntry == null
+				? entries.putIfAbsent(key, loading) == null
+				: entries.replace(key, previousEntry, loading);
+		if (!marked) {
+			return null;
+		}
+		evictIfFull();
+		return loading;
+	}
+
+	private void endLoading(final String key, final Entry<V> loading, final V value) {
+		if (loading != null) {
+			entries.replace(key, loading, newEntry(value));
+		}
+	}
+
+	/**
+	 * Puts a value which has just been written.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 */
+	void put(final String key, final V value) {
+		if (!isEnabled()) {
+			return;
+		}
+		entries.put(key, newEntry(value));
+		evictIfFull();
+	}
+
+	private Entry<V> newEntry(final V value) {
+		return new Entry<>(value, System.currentTimeMillis() + ttlMillis);
+	}
+
+	/**
+	 * Evicts the expired entries, then arbitrary ones, until a tenth of the cache is free.
+	 */
+	private void evictIfFull() {
+		if (entries.size() <= maxSize) {
+			return;
+		}
+		final int targetSize = maxSize - maxSize / 10;
+		final long now = System.currentTimeMillis();
+		final Iterator<Entry<V>> expiredIterator = entries.values().iterator();
+		while (expiredIterator.hasNext() && entries.size() > targetSize) {
+			if (!expiredIterator.next().isValid(now)) {
+				expiredIterator.remove();
+				evictions.increment();
+			}
+		}
+		final Iterator<Entry<V>> iterator = entries.values().iterator();
+		while (iterator.hasNext() && entries.size() > targetSize) {
+			iterator.next();
+			iterator.remove();
+			evictions.increment();
+		}
+	}
+
+	void invalidate(final String key) {
+		if (!isEnabled()) {
+			return;
+		}
+		entries.remove(key);
+	}
+
+	void invalidateAll() {
+		if (!isEnabled()) {
+			return;
+		}
+		entries.clear();
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+	long getHits() {
+		return hits.sum();
+	}
+
+	long getMisses() {
+		return misses.sum();
+	}
+
+	long getEvictions() {
+		return evictions.sum();
+	}
+}
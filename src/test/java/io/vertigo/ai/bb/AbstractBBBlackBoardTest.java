@@ -1,5 +1,16 @@
 package io.vertigo.ai.bb;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import javax.inject.Inject;
 
 import org.junit.jupiter.api.AfterEach;
@@ -112,6 +123,30 @@ public abstract class AbstractBBBlackBoardTest {
 		Assertions.assertEquals(4, blackBoard.keys(BBKeyPattern.of("/*")).size());
 	}
 
+	@Test
+	public void testKeysPrefix() {
+		final BlackBoard blackBoard = blackBoardManager.connect(BBKey.of("/test"));
+		//---
+		blackBoard.putString(BBKey.of("/u"), "root");
+		blackBoard.putString(BBKey.of("/user"), "joe");
+		blackBoard.putString(BBKey.of("/u/1/name"), "alan");
+		blackBoard.putString(BBKey.of("/u/2/name"), "ada");
+		blackBoard.listPush(BBKey.of("/u/2/history"), "hello");
+		Assertions.assertEquals(5, blackBoard.keys(BBKeyPattern.of("/*")).size());
+		Assertions.assertEquals(3, blackBoard.keys(BBKeyPattern.of("/u/*")).size());
+		Assertions.assertEquals(5, blackBoard.keys(BBKeyPattern.of("/u*")).size());
+		Assertions.assertEquals(2, blackBoard.keys(BBKeyPattern.of("/u/2/*")).size());
+		Assertions.assertEquals(0, blackBoard.keys(BBKeyPattern.of("/u/3/*")).size());
+		//---
+		blackBoard.delete(BBKeyPattern.of("/u/2/*"));
+		Assertions.assertEquals(1, blackBoard.keys(BBKeyPattern.of("/u/*")).size());
+		Assertions.assertEquals(0, blackBoard.listSize(BBKey.of("/u/2/history")));
+		blackBoard.delete(BBKeyPattern.of("/u/*"));
+		Assertions.assertEquals(2, blackBoard.keys(BBKeyPattern.of("/*")).size());
+		blackBoard.delete(BBKeyPattern.of("/u*"));
+		Assertions.assertEquals(0, blackBoard.keys(BBKeyPattern.of("/*")).size());
+	}
+
 	@Test
 	public void testGetPut() {
 		final BlackBoard blackBoard = blackBoardManager.connect(BBKey.of("/test"));
@@ -142,6 +177,78 @@ public abstract class AbstractBBBlackBoardTest {
 		Assertions.assertEquals("/u/test", blackBoard.format("/u/{{/sample/key}}"));
 	}
 
+	@Test
+	public void testBatch() {
+		final BlackBoard blackBoard = blackBoardManager.connect(BBKey.of("/test"));
+		//---
+		final BBKey nameKey = BBKey.of("/name");
+		final BBKey countKey = BBKey.of("/count");
+		final BBKey historyKey = BBKey.of("/history");
+		blackBoard.batch(bb -> {
+			bb.putString(nameKey, "joe");
+			Assertions.assertEquals("joe", bb.getString(nameKey));
+			bb.incr(countKey);
+			bb.incr(countKey);
+			Assertions.assertEquals(2, bb.getInteger(countKey));
+			bb.listPush(historyKey, "hello");
+			bb.listPush(historyKey, "world");
+			Assertions.assertEquals(2, bb.listSize(historyKey));
+			bb.putString(nameKey, "ada");
+		});
+		Assertions.assertEquals("ada", blackBoard.getString(nameKey));
+		Assertions.assertEquals(2, blackBoard.getInteger(countKey));
+		Assertions.assertEquals("world", blackBoard.listPeek(historyKey));
+		Assertions.assertThrows(IllegalStateException.class,
+				() -> blackBoard.batch(bb -> bb.putString(countKey, "not an integer")));
+	}
+
+	@Test
+	public void testGetAllPutAll() {
+		final BlackBoard blackBoard = blackBoardManager.connect(BBKey.of("/test"));
+		//---
+		final BBKey nameKey = BBKey.of("/profile/name");
+		final BBKey ageKey = BBKey.of("/profile/age");
+		final BBKey cityKey = BBKey.of("/profile/city");
+		Assertions.assertTrue(blackBoard.getAll(List.of(nameKey, ageKey)).isEmpty());
+		blackBoard.putAll(Map.of(nameKey, "joe", ageKey, 42));
+		Assertions.assertEquals("joe", blackBoard.getString(nameKey));
+		Assertions.assertEquals(42, blackBoard.getInteger(ageKey));
+		final Map<BBKey, String> values = blackBoard.getAll(List.of(nameKey, ageKey, cityKey));
+		Assertions.assertEquals(2, values.size());
+		Assertions.assertEquals("joe", values.get(nameKey));
+		Assertions.assertEquals("42", values.get(ageKey));
+		Assertions.assertEquals("not found:/profile/city", blackBoard.format("{{/profile/city}}"));
+		//--- nothing is written if a type is wrong
+		Assertions.assertThrows(IllegalStateException.class,
+				() -> blackBoard.putAll(Map.of(cityKey, "paris", ageKey, "old")));
+		Assertions.assertEquals(42, blackBoard.getInteger(ageKey));
+		Assertions.assertNull(blackBoard.getString(cityKey));
+	}
+
+	@Test
+	public void testExpire() throws InterruptedException {
+		final BlackBoard blackBoard = blackBoardManager.connect(BBKey.of("/test"));
+		//---
+		final BBKey nameKey = BBKey.of("/session/name");
+		final BBKey countKey = BBKey.of("/session/count");
+		final BBKey otherKey = BBKey.of("/other");
+		blackBoard.putString(nameKey, "joe");
+		blackBoard.incr(countKey);
+		blackBoard.putString(otherKey, "kept");
+		blackBoard.expire(BBKeyPattern.of("/session/*"), Duration.ofMillis(300));
+		blackBoard.putString(nameKey, "ada"); // the ttl is kept
+		Assertions.assertEquals("ada", blackBoard.getString(nameKey));
+		Thread.sleep(500);
+		Assertions.assertFalse(blackBoard.exists(nameKey));
+		Assertions.assertNull(blackBoard.getInteger(countKey));
+		Assertions.assertNull(blackBoard.getType(countKey));
+		Assertions.assertEquals(0, blackBoard.keys(BBKeyPattern.of("/session/*")).size());
+		Assertions.assertEquals("kept", blackBoard.getString(otherKey));
+		//--- an expired key can be written with another type
+		blackBoard.putString(countKey, "reset");
+		Assertions.assertEquals("reset", blackBoard.getString(countKey));
+	}
+
 	@Test
 	public void testInc() {
 		final BlackBoard blackBoard = blackBoardManager.connect(BBKey.of("/test"));
@@ -156,6 +263,94 @@ public abstract class AbstractBBBlackBoardTest {
 		Assertions.assertEquals(12, blackBoard.getInteger(key));
 	}
 
+	@Test
+	public void testConcurrentInc() throws InterruptedException {
+		final BlackBoard blackBoard = blackBoardManager.connect(BBKey.of("/test"));
+		//---
+		final BBKey key = BBKey.of("/counter");
+		final int threads = 8;
+		final int increments = 1000;
+		final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+		for (int i = 0; i < threads; i++) {
+			executorService.execute(() -> {
+				for (int j = 0; j < increments; j++) {
+					blackBoard.incr(key);
+					blackBoard.incrBy(key, 2);
+					blackBoard.decr(key);
+				}
+			});
+		}
+		executorService.shutdown();
+		Assertions.assertTrue(executorService.awaitTermination(1, TimeUnit.MINUTES));
+		Assertions.assertEquals(threads * increments * 2, blackBoard.getInteger(key));
+	}
+
+	@Test
+	public void testCompareAndSet() {
+		final BlackBoard blackBoard = blackBoardManager.connect(BBKey.of("/test"));
+		//---
+		final BBKey key = BBKey.of("/state");
+		Assertions.assertTrue(blackBoard.compareAndSet(key, null, "idle"));
+		Assertions.assertFalse(blackBoard.compareAndSet(key, null, "idle")); // the key exists
+		Assertions.assertFalse(blackBoard.compareAndSet(key, "running", "done"));
+		Assertions.assertEquals("idle", blackBoard.getString(key));
+		Assertions.assertTrue(blackBoard.compareAndSet(key, "idle", "running"));
+		Assertions.assertEquals("running", blackBoard.getString(key));
+		//---
+		final BBKey countKey = BBKey.of("/count");
+		blackBoard.incr(countKey);
+		Assertions.assertThrows(IllegalStateException.class, () -> blackBoard.compareAndSet(countKey, "1", "2"));
+	}
+
+	@Test
+	public void testPutIfVersion() {
+		final BlackBoard blackBoard = blackBoardManager.connect(BBKey.of("/test"));
+		//---
+		final BBKey key = BBKey.of("/state");
+		Assertions.assertEquals(new BBVersionedValue(null, 0), blackBoard.getVersioned(key));
+		Assertions.assertTrue(blackBoard.putIfVersion(key, "idle", 0));
+		final BBVersionedValue idle = blackBoard.getVersioned(key);
+		Assertions.assertEquals("idle", idle.value());
+		Assertions.assertTrue(idle.version() > 0);
+		//--- a write done meanwhile changes the version, even with the same value
+		blackBoard.putString(key, "idle");
+		Assertions.assertFalse(blackBoard.putIfVersion(key, "running", idle.version()));
+		final BBVersionedValue current = blackBoard.getVersioned(key);
+		Assertions.assertTrue(blackBoard.putIfVersion(key, "running", current.version()));
+		Assertions.assertEquals("running", blackBoard.getString(key));
+		//--- a key deleted then written again doesn't get back its version
+		final long runningVersion = blackBoard.getVersioned(key).version();
+		blackBoard.delete(BBKeyPattern.of("/state"));
+		blackBoard.putString(key, "running");
+		Assertions.assertFalse(blackBoard.putIfVersion(key, "done", runningVersion));
+		//--- a key written without version still exists
+		Assertions.assertFalse(blackBoard.putIfVersion(key, "done", 0));
+	}
+
+	@Test
+	public void testConcurrentCompareAndSet() throws InterruptedException {
+		final BlackBoard blackBoard = blackBoardManager.connect(BBKey.of("/test"));
+		//---
+		final BBKey key = BBKey.of("/history");
+		blackBoard.putString(key, "");
+		final int threads = 8;
+		final int appends = 200;
+		final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+		for (int i = 0; i < threads; i++) {
+			executorService.execute(() -> {
+				for (int j = 0; j < appends; j++) {
+					BBVersionedValue history;
+					do {
+						history = blackBoard.getVersioned(key);
+					} while (!blackBoard.putIfVersion(key, history.value() + "x", history.version()));
+				}
+			});
+		}
+		executorService.shutdown();
+		Assertions.assertTrue(executorService.awaitTermination(1, TimeUnit.MINUTES));
+		Assertions.assertEquals(threads * appends, blackBoard.getString(key).length());
+	}
+
 	@Test
 	public void testDec() {
 		final BlackBoard blackBoard = blackBoardManager.connect(BBKey.of("/test"));
@@ -262,4 +457,97 @@ public abstract class AbstractBBBlackBoardTest {
 		Assertions.assertEquals(0, blackBoard.listSize(sampleKey));
 	}
 
+	@Test
+	public void testListDeque() {
+		final BlackBoard blackBoard = blackBoardManager.connect(BBKey.of("/test"));
+		//---
+		final BBKey sampleKey = BBKey.of("/deque");
+		blackBoard.listPush(sampleKey, "b");
+		blackBoard.listPushLeft(sampleKey, "a");
+		blackBoard.listPush(sampleKey, "c");
+		Assertions.assertEquals(List.of("a", "b", "c"), blackBoard.listRange(sampleKey, 0, -1));
+		Assertions.assertEquals(List.of("b", "c"), blackBoard.listRange(sampleKey, 1, 10));
+		Assertions.assertEquals(List.of("a"), blackBoard.listRange(sampleKey, -5, 0));
+		Assertions.assertEquals(List.of(), blackBoard.listRange(sampleKey, 2, 1));
+		Assertions.assertEquals("a", blackBoard.listPopLeft(sampleKey));
+		Assertions.assertEquals("c", blackBoard.listPop(sampleKey));
+		Assertions.assertEquals(1, blackBoard.listSize(sampleKey));
+		Assertions.assertEquals("b", blackBoard.listPopLeft(sampleKey));
+		Assertions.assertEquals(null, blackBoard.listPopLeft(sampleKey));
+		//--- a capped history
+		final BBKey historyKey = BBKey.of("/history");
+		for (int i = 0; i < 100; i++) {
+			blackBoard.listPush(historyKey, "event" + i);
+			blackBoard.listTrim(historyKey, -10, -1);
+		}
+		Assertions.assertEquals(10, blackBoard.listSize(historyKey));
+		Assertions.assertEquals("event90", blackBoard.listGet(historyKey, 0));
+		Assertions.assertEquals("event99", blackBoard.listPeek(historyKey));
+		blackBoard.listTrim(historyKey, 5, 1);
+		Assertions.assertEquals(0, blackBoard.listSize(historyKey));
+	}
+
+	@Test
+	public void testAsync() {
+		final AsyncBlackBoard asyncBlackBoard = blackBoardManager.connectAsync(BBKey.of("/test"));
+		final BlackBoard blackBoard = blackBoardManager.connect(BBKey.of("/test"));
+		//---
+		final BBKey nameKey = BBKey.of("/name");
+		final BBKey countKey = BBKey.of("/count");
+		final BBKey listKey = BBKey.of("/list");
+		final CompletionStage<Void> writes = asyncBlackBoard.putString(nameKey, "joe")
+				.thenCompose(v -> asyncBlackBoard.incrBy(countKey, 2))
+				.thenCompose(v -> asyncBlackBoard.putAll(Map.of(BBKey.of("/city"), "paris")))
+				.thenCompose(v -> asyncBlackBoard.listPush(listKey, "a"))
+				.thenCompose(v -> asyncBlackBoard.listPush(listKey, "b"));
+		writes.toCompletableFuture().join();
+		Assertions.assertEquals("joe", blackBoard.getString(nameKey));
+		Assertions.assertEquals(2, blackBoard.getInteger(countKey));
+		//--- the reads
+		Assertions.assertTrue(asyncBlackBoard.exists(nameKey).toCompletableFuture().join());
+		Assertions.assertEquals("joe", asyncBlackBoard.getString(nameKey).toCompletableFuture().join());
+		Assertions.assertEquals(2, asyncBlackBoard.getInteger(countKey).toCompletableFuture().join());
+		Assertions.assertEquals(Map.of(nameKey, "joe", BBKey.of("/city"), "paris"),
+				asyncBlackBoard.getAll(List.of(nameKey, BBKey.of("/city"), BBKey.of("/unknown"))).toCompletableFuture().join());
+		Assertions.assertEquals(List.of("a", "b"), asyncBlackBoard.listRange(listKey, 0, -1).toCompletableFuture().join());
+		Assertions.assertEquals("b", asyncBlackBoard.listPop(listKey).toCompletableFuture().join());
+		Assertions.assertEquals(1, asyncBlackBoard.listSize(listKey).toCompletableFuture().join());
+		//--- the errors complete the stages
+		final CompletableFuture<Integer> wrongType = asyncBlackBoard.getInteger(nameKey).toCompletableFuture();
+		Assertions.assertThrows(CompletionException.class, wrongType::join);
+		final CompletableFuture<Void> wrongWrite = asyncBlackBoard.putInteger(nameKey, 1).toCompletableFuture();
+		Assertions.assertThrows(CompletionException.class, wrongWrite::join);
+		//--- many concurrent operations
+		final List<CompletableFuture<Void>> increments = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			increments.add(asyncBlackBoard.incrBy(countKey, 1).toCompletableFuture());
+		}
+		CompletableFuture.allOf(increments.toArray(CompletableFuture[]::new)).join();
+		Assertions.assertEquals(1002, blackBoard.getInteger(countKey));
+		asyncBlackBoard.delete(BBKeyPattern.of("/*")).toCompletableFuture().join();
+		Assertions.assertFalse(blackBoard.exists(nameKey));
+	}
+
+	@Test
+	public void testManySessions() {
+		final int sessions = 10_000;
+		final List<CompletableFuture<String>> results = new ArrayList<>(sessions);
+		//--- each session writes and reads its own keys, all the sessions are in flight at the same time
+		for (int i = 0; i < sessions; i++) {
+			final AsyncBlackBoard session = blackBoardManager.connectAsync(BBKey.of("/test/s" + i));
+			final String name = "bot" + i;
+			results.add(session.putString(BBKey.of("/name"), name)
+					.thenCompose(v -> session.incrBy(BBKey.of("/turns"), 1))
+					.thenCompose(v -> session.listPush(BBKey.of("/history"), name))
+					.thenCompose(v -> session.getString(BBKey.of("/name")))
+					.toCompletableFuture());
+		}
+		for (int i = 0; i < sessions; i++) {
+			Assertions.assertEquals("bot" + i, results.get(i).join());
+		}
+		final BlackBoard blackBoard = blackBoardManager.connect(BBKey.of("/test"));
+		Assertions.assertEquals(1, blackBoard.getInteger(BBKey.of("/s" + (sessions - 1) + "/turns")));
+		Assertions.assertEquals(3 * sessions, blackBoard.keys(BBKeyPattern.of("/*")).size());
+	}
+
 }
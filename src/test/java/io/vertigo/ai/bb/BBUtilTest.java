@@ -78,4 +78,17 @@ public class BBUtilTest {
 		blackBoard.putString(BBKey.of("/u/idx"), "2");
 		Assertions.assertEquals("hello ada", blackBoard.format("hello {{/u/{{/u/idx}}/name}}"));
 	}
+
+	@Test
+	public void testFormatter3() {
+		final BlackBoard blackBoard = blackBoardManager.connect(BBKey.of("/test"));
+		//---
+		blackBoard.putString(BBKey.of("/name"), "joe");
+		blackBoard.putString(BBKey.of("/quote"), "{{/name}}");
+		Assertions.assertEquals("joe joe", blackBoard.format("{{/name}} {{/name}}"));
+		//values are not parsed as templates
+		Assertions.assertEquals("say {{/name}}", blackBoard.format("say {{/quote}}"));
+		Assertions.assertThrows(IllegalStateException.class,
+				() -> blackBoard.format("{{/name"));
+	}
 }
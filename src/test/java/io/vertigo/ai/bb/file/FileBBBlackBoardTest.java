@@ -0,0 +1,107 @@
+package io.vertigo.ai.bb.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.ai.AiFeatures;
+import io.vertigo.ai.bb.AbstractBBBlackBoardTest;
+import io.vertigo.ai.bb.BBKey;
+import io.vertigo.ai.bb.BBKeyPattern;
+import io.vertigo.ai.bb.BlackBoard.Type;
+import io.vertigo.ai.plugins.bb.file.FileBlackBoardStorePlugin;
+import io.vertigo.core.node.config.NodeConfig;
+import io.vertigo.core.param.Param;
+
+public class FileBBBlackBoardTest extends AbstractBBBlackBoardTest {
+
+	@Override
+	protected NodeConfig buildNodeConfig() {
+		return buildNodeConfig(createTempDir().resolve("bb.log"), 100_000);
+	}
+
+	private static NodeConfig buildNodeConfig(final Path filePath, final int compactionThreshold) {
+		return NodeConfig.builder()
+				.addModule(
+						new AiFeatures()
+								.withBlackboard()
+								.withFileBlackboard(
+										Param.of("filePath", filePath.toString()),
+										Param.of("compactionThreshold", compactionThreshold))
+								.build())
+				.build();
+	}
+
+	private static Path createTempDir() {
+		try {
+			return Files.createTempDirectory("bb");
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Test
+	public void testRestart() {
+		final Path filePath = createTempDir().resolve("bb.log");
+		final BBKey nameKey = BBKey.of("/test/name");
+		final BBKey countKey = BBKey.of("/test/count");
+		final BBKey historyKey = BBKey.of("/test/history");
+		final BBKey emptyKey = BBKey.of("/test/empty");
+		final BBKey tmpKey = BBKey.of("/test/tmp");
+		final FileBlackBoardStorePlugin store = new FileBlackBoardStorePlugin(Optional.empty(), filePath.toString(), Optional.of(10), Optional.of("always"));
+		store.start();
+		store.putString(nameKey, "joe");
+		for (int i = 0; i < 20; i++) {
+			store.incrBy(countKey, 1); // triggers some compactions
+		}
+		//a write rejected by the memory store is not logged
+		Assertions.assertThrows(IllegalStateException.class, () -> store.putString(countKey, "joe"));
+		store.listPush(historyKey, "hello");
+		store.listPush(historyKey, "world");
+		store.listPush(emptyKey, "tmp");
+		store.listPop(emptyKey);
+		store.putString(tmpKey, "tmp");
+		store.delete(BBKeyPattern.of("/test/tmp"));
+		store.stop();
+		//---
+		final FileBlackBoardStorePlugin restartedStore = new FileBlackBoardStorePlugin(Optional.empty(), filePath.toString(), Optional.of(10), Optional.empty());
+		restartedStore.start();
+		Assertions.assertEquals("joe", restartedStore.getString(nameKey));
+		Assertions.assertEquals(20, restartedStore.getInteger(countKey));
+		Assertions.assertEquals(2, restartedStore.listSize(historyKey));
+		Assertions.assertEquals("world", restartedStore.listPeek(historyKey));
+		Assertions.assertEquals(Type.List, restartedStore.getType(emptyKey));
+		Assertions.assertEquals(0, restartedStore.listSize(emptyKey));
+		Assertions.assertFalse(restartedStore.exists(tmpKey));
+		restartedStore.stop();
+	}
+
+	@Test
+	public void testRestartAfterCorruptedTail() throws IOException {
+		final Path filePath = createTempDir().resolve("bb.log");
+		final BBKey nameKey = BBKey.of("/test/name");
+		final FileBlackBoardStorePlugin store = new FileBlackBoardStorePlugin(Optional.empty(), filePath.toString(), Optional.of(1000), Optional.of("always"));
+		store.start();
+		store.putString(nameKey, "joe");
+		store.stop();
+		//a zero-filled tail, then a record with a garbage length
+		Files.write(filePath, new byte[64], StandardOpenOption.APPEND);
+		final FileBlackBoardStorePlugin restartedStore = new FileBlackBoardStorePlugin(Optional.empty(), filePath.toString(), Optional.of(1000), Optional.empty());
+		restartedStore.start();
+		Assertions.assertEquals("joe", restartedStore.getString(nameKey));
+		restartedStore.putString(nameKey, "jack");
+		restartedStore.stop();
+		Files.write(filePath, new byte[] { 0, 0x7f, -1, -1, -1 }, StandardOpenOption.APPEND);
+		//---
+		final FileBlackBoardStorePlugin restartedAgainStore = new FileBlackBoardStorePlugin(Optional.empty(), filePath.toString(), Optional.of(1000), Optional.empty());
+		restartedAgainStore.start();
+		Assertions.assertEquals("jack", restartedAgainStore.getString(nameKey));
+		restartedAgainStore.stop();
+	}
+}
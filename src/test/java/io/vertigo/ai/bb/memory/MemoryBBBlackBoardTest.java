@@ -1,7 +1,25 @@
 package io.vertigo.ai.bb.memory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
 import io.vertigo.ai.AiFeatures;
 import io.vertigo.ai.bb.AbstractBBBlackBoardTest;
+import io.vertigo.ai.bb.BBKey;
+import io.vertigo.ai.bb.BBKeyPattern;
+import io.vertigo.ai.bb.BBWatch;
+import io.vertigo.ai.bb.BlackBoard.Type;
+import io.vertigo.ai.plugins.bb.memory.MemoryBlackBoardStorePlugin;
+import io.vertigo.core.analytics.metric.Metric;
 import io.vertigo.core.node.config.NodeConfig;
 
 public class MemoryBBBlackBoardTest extends AbstractBBBlackBoardTest {
@@ -17,4 +35,90 @@ public class MemoryBBBlackBoardTest extends AbstractBBBlackBoardTest {
 				.build();
 	}
 
+	@Test
+	public void testSnapshotRestore() throws IOException {
+		final MemoryBlackBoardStorePlugin store = MemoryBlackBoardStorePlugin.builder().build();
+		store.putString(BBKey.of("/u1/name"), "joe");
+		store.putString(BBKey.of("/u1/nickname"), null);
+		store.putInteger(BBKey.of("/u1/age"), 42);
+		store.listPush(BBKey.of("/u1/history"), "hello");
+		store.listPush(BBKey.of("/u1/history"), "world");
+		store.putString(BBKey.of("/u2/name"), "ada");
+		//---
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		Assertions.assertEquals(4, store.snapshot(BBKeyPattern.of("/u1/*"), outputStream));
+		//---
+		final MemoryBlackBoardStorePlugin restoredStore = MemoryBlackBoardStorePlugin.builder().build();
+		restoredStore.listPush(BBKey.of("/u1/history"), "old");
+		Assertions.assertEquals(4, restoredStore.restore(new ByteArrayInputStream(outputStream.toByteArray())));
+		Assertions.assertEquals("joe", restoredStore.getString(BBKey.of("/u1/name")));
+		Assertions.assertEquals(Type.String, restoredStore.getType(BBKey.of("/u1/nickname")));
+		Assertions.assertNull(restoredStore.getString(BBKey.of("/u1/nickname")));
+		Assertions.assertEquals(42, restoredStore.getInteger(BBKey.of("/u1/age")));
+		Assertions.assertEquals(2, restoredStore.listSize(BBKey.of("/u1/history")));
+		Assertions.assertEquals("world", restoredStore.listPeek(BBKey.of("/u1/history")));
+		Assertions.assertFalse(restoredStore.exists(BBKey.of("/u2/name")));
+		Assertions.assertEquals(4, restoredStore.keys(BBKeyPattern.of("/u1/*")).size());
+	}
+
+	@Test
+	public void testExpirationWheel() throws InterruptedException {
+		final MemoryBlackBoardStorePlugin store = MemoryBlackBoardStorePlugin.builder().build();
+		for (int i = 0; i < 100; i++) {
+			store.putInteger(BBKey.of("/s" + i + "/count"), i);
+		}
+		store.expire(BBKeyPattern.of("/*"), Duration.ofMillis(200));
+		//the keys are evicted in the background, without being read
+		Thread.sleep(2500);
+		final Map<String, Double> metrics = store.getKeyMetrics().stream()
+				.collect(Collectors.toMap(Metric::name, Metric::value));
+		Assertions.assertEquals(0, metrics.get("bbLiveKeys").intValue());
+		Assertions.assertEquals(0, metrics.get("bbExpiringKeys").intValue());
+		Assertions.assertEquals(100, metrics.get("bbExpiredKeys").intValue());
+		store.stop();
+	}
+
+	@Test
+	public void testMemoryBudget() {
+		final MemoryBlackBoardStorePlugin store = MemoryBlackBoardStorePlugin.builder()
+				.withMaxKeys(10)
+				.build();
+		for (int i = 0; i < 4; i++) {
+			store.putString(BBKey.of("/s" + i + "/name"), "joe");
+			store.incrBy(BBKey.of("/s" + i + "/count"), 1);
+			store.listPush(BBKey.of("/s" + i + "/history"), "hello");
+			if (i == 2) {
+				store.getString(BBKey.of("/s0/name")); // s0 is used again, s1 is now the least recently used
+			}
+		}
+		Assertions.assertFalse(store.exists(BBKey.of("/s1/name")));
+		Assertions.assertEquals(0, store.keys(BBKeyPattern.of("/s1/*")).size());
+		Assertions.assertEquals("joe", store.getString(BBKey.of("/s0/name")));
+		Assertions.assertEquals(3, store.keys(BBKeyPattern.of("/s2/*")).size());
+		Assertions.assertEquals(3, store.keys(BBKeyPattern.of("/s3/*")).size());
+		final Map<String, Double> metrics = store.getKeyMetrics().stream()
+				.collect(Collectors.toMap(Metric::name, Metric::value));
+		Assertions.assertEquals(1, metrics.get("bbEvictedRoots").intValue());
+		Assertions.assertEquals(3, metrics.get("bbEvictedKeys").intValue());
+		Assertions.assertEquals(9, metrics.get("bbLiveKeys").intValue());
+	}
+
+	@Test
+	public void testWatch() {
+		final MemoryBlackBoardStorePlugin store = MemoryBlackBoardStorePlugin.builder().build();
+		final List<BBKey> changedKeys = new ArrayList<>();
+		try (BBWatch watch = store.watch(BBKeyPattern.of("/u1/*"), changedKeys::add)) {
+			store.putString(BBKey.of("/u1/name"), "joe");
+			store.incrBy(BBKey.of("/u1/count"), 1);
+			store.listPush(BBKey.of("/u1/history"), "hello");
+			store.putString(BBKey.of("/u2/name"), "ada"); // not watched
+			Assertions.assertNull(store.listPop(BBKey.of("/u1/empty"))); // nothing changed
+			store.delete(BBKeyPattern.of("/u1/name"));
+			Assertions.assertEquals(List.of(BBKey.of("/u1/name"), BBKey.of("/u1/count"), BBKey.of("/u1/history"), BBKey.of("/u1/name")), changedKeys);
+		}
+		//--- a closed watch is not notified anymore
+		store.putString(BBKey.of("/u1/name"), "ada");
+		Assertions.assertEquals(4, changedKeys.size());
+	}
+
 }
@@ -0,0 +1,22 @@
+package io.vertigo.ai.bb.memory;
+
+import io.vertigo.ai.AiFeatures;
+import io.vertigo.ai.bb.AbstractBBBlackBoardTest;
+import io.vertigo.core.node.config.NodeConfig;
+import io.vertigo.core.param.Param;
+
+public class MemoryOffHeapBBBlackBoardTest extends AbstractBBBlackBoardTest {
+
+	@Override
+	protected NodeConfig buildNodeConfig() {
+		return NodeConfig.builder()
+				.addModule(
+						new AiFeatures()
+								.withBlackboard()
+								.withMemoryBlackboard(
+										Param.of("offHeap", "true"))
+								.build())
+				.build();
+	}
+
+}
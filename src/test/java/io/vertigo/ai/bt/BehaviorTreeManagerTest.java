@@ -0,0 +1,281 @@
+package io.vertigo.ai.bt;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.ai.AiFeatures;
+import io.vertigo.ai.bb.BBKey;
+import io.vertigo.ai.bb.BlackBoard;
+import io.vertigo.ai.bb.BlackBoardManager;
+import io.vertigo.core.node.AutoCloseableNode;
+import io.vertigo.core.node.component.di.DIInjector;
+import io.vertigo.core.node.config.NodeConfig;
+
+public class BehaviorTreeManagerTest {
+
+	@Inject
+	private BehaviorTreeManager behaviorTreeManager;
+	@Inject
+	private BlackBoardManager blackBoardManager;
+
+	private AutoCloseableNode node;
+
+	@BeforeEach
+	public final void setUp() throws Exception {
+		node = new AutoCloseableNode(buildNodeConfig());
+		DIInjector.injectMembers(this, node.getComponentSpace());
+	}
+
+	private NodeConfig buildNodeConfig() {
+		return NodeConfig.builder()
+				.addModule(
+						new AiFeatures()
+								.withBlackboard()
+								.withMemoryBlackboard()
+								.build())
+				.build();
+	}
+
+	@AfterEach
+	public final void tearDown() throws Exception {
+		if (node != null) {
+			node.close();
+		}
+	}
+
+	private static BTNode count(final AtomicInteger counter) {
+		return () -> {
+			counter.incrementAndGet();
+			return BTStatus.Succeeded;
+		};
+	}
+
+	// running the first n evaluations, then succeeded
+	private static BTNode runningTimes(final int times) {
+		final AtomicInteger evals = new AtomicInteger();
+		return () -> evals.incrementAndGet() > times
+				? BTStatus.Succeeded
+				: BTStatus.Running;
+	}
+
+	@Test
+	public void testResume() {
+		final AtomicInteger first = new AtomicInteger();
+		final AtomicInteger last = new AtomicInteger();
+		final BTNode rootNode = BTNodes.sequence(
+				count(first),
+				BTNodes.selector(
+						BTNodes.fail(),
+						BTNodes.sequence(count(first), runningTimes(2))),
+				count(last));
+		final BTContext context = new BTContext();
+		Assertions.assertEquals(BTStatus.Running, behaviorTreeManager.run(rootNode, context));
+		Assertions.assertFalse(context.isEmpty());
+		Assertions.assertEquals(BTStatus.Running, behaviorTreeManager.run(rootNode, context));
+		Assertions.assertEquals(BTStatus.Succeeded, behaviorTreeManager.run(rootNode, context));
+		//---
+		Assertions.assertTrue(context.isEmpty());
+		//the nodes before the running one are evaluated only once
+		Assertions.assertEquals(2, first.get());
+		Assertions.assertEquals(1, last.get());
+	}
+
+	@Test
+	public void testWithoutContext() {
+		final AtomicInteger first = new AtomicInteger();
+		final BTNode rootNode = BTNodes.sequence(count(first), runningTimes(1));
+		Assertions.assertEquals(BTStatus.Running, behaviorTreeManager.run(rootNode));
+		Assertions.assertEquals(BTStatus.Succeeded, behaviorTreeManager.run(rootNode));
+		//---
+		Assertions.assertEquals(2, first.get());
+	}
+
+	@Test
+	public void testResumeLoop() {
+		final AtomicInteger rounds = new AtomicInteger();
+		final BTNode rootNode = BTNodes.loopUntil(BTNodes.condition(() -> rounds.get() >= 3), count(rounds), runningTimes(1));
+		final BTContext context = new BTContext();
+		Assertions.assertEquals(BTStatus.Running, behaviorTreeManager.run(rootNode, context));
+		Assertions.assertEquals(BTStatus.Succeeded, behaviorTreeManager.run(rootNode, context));
+		//---
+		Assertions.assertEquals(3, rounds.get());
+	}
+
+	@Test
+	public void testResumeDecorator() {
+		final AtomicInteger first = new AtomicInteger();
+		//the running sequence is seen as failed
+		final BTNode rootNode = BTNodes.transform(BTNodes.sequence(count(first), runningTimes(1)), BTStatus.Failed);
+		final BTContext context = new BTContext();
+		Assertions.assertEquals(BTStatus.Failed, behaviorTreeManager.run(rootNode, context));
+		Assertions.assertTrue(context.isEmpty());
+		Assertions.assertEquals(BTStatus.Failed, behaviorTreeManager.run(rootNode, context));
+		//---
+		//the sequence is evaluated again from its first node
+		Assertions.assertEquals(2, first.get());
+	}
+
+	@Test
+	public void testState() {
+		final BTContext context = new BTContext();
+		BTNodes.sequence(BTNodes.succeed(), BTNodes.selector(BTNodes.fail(), BTNodes.running())).eval(context);
+		final BTContext restored = BTContext.of(context.getState());
+		//---
+		Assertions.assertEquals(context.getState(), restored.getState());
+		Assertions.assertTrue(BTContext.of("").isEmpty());
+	}
+
+	@Test
+	public void testPersistedState() {
+		final BlackBoard blackBoard = blackBoardManager.connect(BBKey.of("/bt"));
+		final BBKey stateKey = BBKey.of("/state");
+		final AtomicInteger first = new AtomicInteger();
+		final BTNode rootNode = BTNodes.sequence(count(first), runningTimes(1));
+		//---
+		Assertions.assertEquals(BTStatus.Running, behaviorTreeManager.run(rootNode, blackBoard, stateKey));
+		Assertions.assertTrue(blackBoard.exists(stateKey));
+		Assertions.assertEquals(BTStatus.Succeeded, behaviorTreeManager.run(rootNode, blackBoard, stateKey));
+		Assertions.assertFalse(blackBoard.exists(stateKey));
+		Assertions.assertEquals(1, first.get());
+	}
+
+	@Test
+	public void testCompile() {
+		final AtomicInteger tree = new AtomicInteger();
+		final AtomicInteger program = new AtomicInteger();
+		final BTNode compiled = BTNodes.compile(buildTree(program));
+		//---
+		for (int i = 0; i < 4; i++) {
+			Assertions.assertEquals(buildTree(tree).eval(), compiled.eval());
+			Assertions.assertEquals(tree.get(), program.get());
+		}
+		Assertions.assertEquals(BTStatus.Failed, BTNodes.compile(BTNodes.transform(BTNodes.succeed(), BTStatus.Failed)).eval());
+		Assertions.assertEquals(BTStatus.Failed, BTNodes.compile(BTNodes.selector()).eval());
+		Assertions.assertEquals(BTStatus.Succeeded, BTNodes.compile(BTNodes.sequence()).eval());
+	}
+
+	// each tree has its own counters
+	private static BTNode buildTree(final AtomicInteger counter) {
+		final AtomicInteger tries = new AtomicInteger();
+		return BTNodes.sequence(
+				count(counter),
+				BTNodes.loopUntil(BTNodes.condition(() -> counter.get() % 5 == 0), count(counter)),
+				BTNodes.doTry(3, BTNodes.condition(() -> tries.incrementAndGet() >= 2)),
+				BTNodes.selector(
+						BTNodes.guard(count(counter), BTNodes.fail()),
+						BTNodes.transform(count(counter), status -> BTStatus.Running)));
+	}
+
+	@Test
+	public void testParallel() {
+		//the nodes wait for each other : they can only succeed if they are evaluated at the same time
+		final CountDownLatch latch = new CountDownLatch(3);
+		final BTNode waiting = () -> {
+			latch.countDown();
+			try {
+				return latch.await(5, TimeUnit.SECONDS) ? BTStatus.Succeeded : BTStatus.Failed;
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return BTStatus.Failed;
+			}
+		};
+		Assertions.assertEquals(BTStatus.Succeeded, behaviorTreeManager.run(BTNodes.parallel(waiting, waiting, waiting)));
+		Assertions.assertEquals(BTStatus.Succeeded, behaviorTreeManager.run(BTNodes.parallel()));
+		Assertions.assertEquals(BTStatus.Failed, behaviorTreeManager.run(BTNodes.parallelAny()));
+	}
+
+	@Test
+	public void testParallelCancel() throws InterruptedException {
+		final CountDownLatch interrupted = new CountDownLatch(1);
+		final AtomicBoolean finished = new AtomicBoolean();
+		final BTNode slow = () -> {
+			try {
+				Thread.sleep(10_000);
+				finished.set(true);
+				return BTStatus.Succeeded;
+			} catch (final InterruptedException e) {
+				interrupted.countDown();
+				return BTStatus.Failed;
+			}
+		};
+		Assertions.assertEquals(BTStatus.Succeeded, behaviorTreeManager.run(BTNodes.parallelAny(slow, BTNodes.succeed())));
+		Assertions.assertEquals(BTStatus.Failed, behaviorTreeManager.run(BTNodes.parallel(slow, BTNodes.fail())));
+		//---
+		Assertions.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+		Assertions.assertFalse(finished.get());
+	}
+
+	@Test
+	public void testRunAsync() {
+		final CompletableFuture<BTStatus> pending = new CompletableFuture<>();
+		final AtomicInteger counter = new AtomicInteger();
+		final BTNode rootNode = BTNodes.sequence(
+				count(counter),
+				BTNodes.selector(BTNodes.fail(), BTNodes.async(() -> pending)),
+				BTNodes.doTry(2, BTNodes.transform(count(counter), BTStatus.Failed)),
+				BTNodes.transform(BTNodes.fail(), BTStatus.Succeeded),
+				count(counter));
+		final CompletableFuture<BTStatus> result = behaviorTreeManager.runAsync(rootNode).toCompletableFuture();
+		//---
+		Assertions.assertFalse(result.isDone());
+		Assertions.assertEquals(1, counter.get());
+		pending.complete(BTStatus.Succeeded);
+		//the try fails after its 2 tries
+		Assertions.assertEquals(BTStatus.Failed, result.join());
+		Assertions.assertEquals(3, counter.get());
+	}
+
+	@Test
+	public void testRunAsyncLoop() {
+		final AtomicInteger rounds = new AtomicInteger();
+		//the synchronous rounds are chained without growing the stack
+		final BTNode syncLoop = BTNodes.loopUntil(BTNodes.condition(() -> rounds.get() == 5_000), count(rounds));
+		Assertions.assertEquals(BTStatus.Succeeded, behaviorTreeManager.runAsync(syncLoop).toCompletableFuture().join());
+		//---
+		final BTNode asyncLoop = BTNodes.loopUntil(BTNodes.condition(() -> rounds.get() == 5_010),
+				BTNodes.async(() -> CompletableFuture.supplyAsync(() -> {
+					rounds.incrementAndGet();
+					return BTStatus.Succeeded;
+				})));
+		Assertions.assertEquals(BTStatus.Succeeded, behaviorTreeManager.runAsync(asyncLoop).toCompletableFuture().join());
+		Assertions.assertEquals(5_010, rounds.get());
+		Assertions.assertEquals(BTStatus.Succeeded, behaviorTreeManager.run(BTNodes.async(() -> CompletableFuture.completedFuture(BTStatus.Succeeded))));
+	}
+
+	@Test
+	public void testRunAsyncResume() {
+		final AtomicInteger first = new AtomicInteger();
+		final AtomicInteger evals = new AtomicInteger();
+		//running the first time, then succeeded
+		final BTNode task = BTNodes.async(() -> CompletableFuture.supplyAsync(() -> evals.incrementAndGet() > 1
+				? BTStatus.Succeeded
+				: BTStatus.Running));
+		final BTNode rootNode = BTNodes.sequence(count(first), BTNodes.selector(BTNodes.fail(), task));
+		final BTContext context = new BTContext();
+		Assertions.assertEquals(BTStatus.Running, behaviorTreeManager.runAsync(rootNode, context).toCompletableFuture().join());
+		Assertions.assertFalse(context.isEmpty());
+		Assertions.assertEquals(BTStatus.Succeeded, behaviorTreeManager.runAsync(rootNode, context).toCompletableFuture().join());
+		//---
+		Assertions.assertTrue(context.isEmpty());
+		Assertions.assertEquals(1, first.get());
+	}
+
+	@Test
+	public void testRunAsyncParallel() {
+		final CompletableFuture<BTStatus> never = new CompletableFuture<>();
+		final BTNode rootNode = BTNodes.parallelAny(BTNodes.async(() -> never), BTNodes.fail(), BTNodes.succeed());
+		Assertions.assertEquals(BTStatus.Succeeded, behaviorTreeManager.runAsync(rootNode).toCompletableFuture().join());
+		Assertions.assertEquals(BTStatus.Failed, behaviorTreeManager.runAsync(BTNodes.parallel(BTNodes.async(() -> never), BTNodes.fail())).toCompletableFuture().join());
+		Assertions.assertEquals(BTStatus.Running, behaviorTreeManager.runAsync(BTNodes.parallel(BTNodes.running(), BTNodes.succeed())).toCompletableFuture().join());
+	}
+}
@@ -0,0 +1,138 @@
+package io.vertigo.ai.bt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.ai.AiFeatures;
+import io.vertigo.core.node.AutoCloseableNode;
+import io.vertigo.core.node.component.di.DIInjector;
+import io.vertigo.core.node.config.NodeConfig;
+import io.vertigo.core.param.Param;
+
+public class BehaviorTreeSchedulerManagerTest {
+
+	@Inject
+	private BehaviorTreeSchedulerManager behaviorTreeSchedulerManager;
+
+	private AutoCloseableNode node;
+
+	@BeforeEach
+	public final void setUp() throws Exception {
+		node = new AutoCloseableNode(buildNodeConfig());
+		DIInjector.injectMembers(this, node.getComponentSpace());
+	}
+
+	private NodeConfig buildNodeConfig() {
+		return NodeConfig.builder()
+				.addModule(
+						new AiFeatures()
+								.withScheduler(
+										Param.of("parallelism", 2),
+										Param.of("resolutionMillis", 5))
+								.build())
+				.build();
+	}
+
+	@AfterEach
+	public final void tearDown() throws Exception {
+		if (node != null) {
+			node.close();
+		}
+	}
+
+	private static void await(final AtomicInteger counter, final int expected) throws InterruptedException {
+		for (int i = 0; i < 500 && counter.get() < expected; i++) {
+			Thread.sleep(10);
+		}
+		Assertions.assertEquals(expected, counter.get());
+	}
+
+	@Test
+	public void testTickWhileRunning() throws InterruptedException {
+		final AtomicInteger ticks = new AtomicInteger();
+		final AtomicInteger first = new AtomicInteger();
+		final BTNode rootNode = BTNodes.sequence(
+				() -> {
+					first.incrementAndGet();
+					return BTStatus.Succeeded;
+				},
+				() -> ticks.incrementAndGet() < 3 ? BTStatus.Running : BTStatus.Succeeded);
+		final BTAgent agent = behaviorTreeSchedulerManager.register(rootNode, 10);
+		await(ticks, 3);
+		//---
+		Assertions.assertEquals(BTStatus.Succeeded, agent.getLastStatus());
+		//the agent is skipped until it changes
+		Thread.sleep(100);
+		Assertions.assertEquals(3, ticks.get());
+		//the BT is resumed at its running node
+		Assertions.assertEquals(1, first.get());
+		agent.changed();
+		await(ticks, 4);
+		Assertions.assertEquals(2, first.get());
+		agent.close();
+	}
+
+	@Test
+	public void testStats() throws InterruptedException {
+		final AtomicInteger ticks = new AtomicInteger();
+		final BTAgent agent = behaviorTreeSchedulerManager.register(() -> {
+			ticks.incrementAndGet();
+			return BTStatus.Succeeded;
+		}, 10);
+		await(ticks, 1);
+		Thread.sleep(50);
+		final BTSchedulerStats stats = behaviorTreeSchedulerManager.getStats();
+		//---
+		Assertions.assertEquals(1, stats.ticks());
+		Assertions.assertTrue(stats.skippedTicks() > 0);
+		Assertions.assertTrue(stats.ticksPerSecond() > 0);
+		Assertions.assertTrue(stats.maxTickNanos() >= stats.meanTickNanos());
+		agent.close();
+	}
+
+	@Test
+	public void testOverrun() throws InterruptedException {
+		final AtomicInteger ticks = new AtomicInteger();
+		final BTAgent agent = behaviorTreeSchedulerManager.register(() -> {
+			try {
+				Thread.sleep(100);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			ticks.incrementAndGet();
+			return BTStatus.Running;
+		}, 10);
+		await(ticks, 2);
+		agent.close();
+		//---
+		//the ticks are not queued behind the slow one
+		Assertions.assertTrue(behaviorTreeSchedulerManager.getStats().overrunTicks() > 0);
+		Assertions.assertTrue(ticks.get() <= 3);
+	}
+
+	@Test
+	public void testAsyncTick() throws InterruptedException {
+		final CompletableFuture<BTStatus> never = new CompletableFuture<>();
+		//more agents waiting for I/O than threads
+		final List<BTAgent> waitingAgents = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			waitingAgents.add(behaviorTreeSchedulerManager.register(BTNodes.async(() -> never), 10));
+		}
+		final AtomicInteger ticks = new AtomicInteger();
+		final BTAgent agent = behaviorTreeSchedulerManager.register(() -> ticks.incrementAndGet() < 3 ? BTStatus.Running : BTStatus.Succeeded, 10);
+		//---
+		//the threads are not blocked by the pending ticks
+		await(ticks, 3);
+		agent.close();
+		waitingAgents.forEach(BTAgent::close);
+	}
+}
@@ -87,6 +87,15 @@ public class BtCommandManagerTest {
 		Assertions.assertEquals(BTStatus.Running, status);
 	}
 
+	@Test
+	public void testParallel() {
+		Assertions.assertEquals(BTStatus.Succeeded, eval("begin parallel\n	succeed\n	succeed\nend parallel"));
+		Assertions.assertEquals(BTStatus.Failed, eval("begin parallel all\n	succeed\n	fail\nend parallel"));
+		Assertions.assertEquals(BTStatus.Running, eval("begin parallel any\n	fail\n	running\nend parallel"));
+		Assertions.assertEquals(BTStatus.Succeeded, eval("begin parallel 2\n	succeed\n	fail\n	succeed\nend parallel"));
+		Assertions.assertThrows(IllegalStateException.class, () -> eval("begin parallel 3\n	succeed\n	succeed\nend parallel"));
+	}
+
 	@Test
 	public void testSimpleSequence() {
 		// An empty sequence always succeeds